@@ -0,0 +1,88 @@
+package com.role.implementation.DTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Outcome of replaying stored energy history against a candidate policy.
+ */
+public class PolicySimulationResultDTO {
+
+    private LocalDate from;
+    private LocalDate to;
+
+    private long devicesReplayed;
+    private long readingsReplayed;
+
+    // Times a device would have been switched off, and how many distinct devices
+    private long enforcementCount;
+    private long devicesAffected;
+
+    // kWh actually consumed in the range, and the part the policy would have avoided
+    private double totalEnergy;
+    private double energySaved;
+    private double savedPercent;
+
+    private List<UserImpact> userImpacts;
+
+    private long elapsedMillis;
+
+    public PolicySimulationResultDTO() {
+    }
+
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+
+    public long getDevicesReplayed() { return devicesReplayed; }
+    public void setDevicesReplayed(long devicesReplayed) { this.devicesReplayed = devicesReplayed; }
+
+    public long getReadingsReplayed() { return readingsReplayed; }
+    public void setReadingsReplayed(long readingsReplayed) { this.readingsReplayed = readingsReplayed; }
+
+    public long getEnforcementCount() { return enforcementCount; }
+    public void setEnforcementCount(long enforcementCount) { this.enforcementCount = enforcementCount; }
+
+    public long getDevicesAffected() { return devicesAffected; }
+    public void setDevicesAffected(long devicesAffected) { this.devicesAffected = devicesAffected; }
+
+    public double getTotalEnergy() { return totalEnergy; }
+    public void setTotalEnergy(double totalEnergy) { this.totalEnergy = totalEnergy; }
+
+    public double getEnergySaved() { return energySaved; }
+    public void setEnergySaved(double energySaved) { this.energySaved = energySaved; }
+
+    public double getSavedPercent() { return savedPercent; }
+    public void setSavedPercent(double savedPercent) { this.savedPercent = savedPercent; }
+
+    public List<UserImpact> getUserImpacts() { return userImpacts; }
+    public void setUserImpacts(List<UserImpact> userImpacts) { this.userImpacts = userImpacts; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+
+    /**
+     * Per-user share of the simulated enforcement.
+     */
+    public static class UserImpact {
+
+        private int userId;
+        private String userName;
+        private long enforcementCount;
+        private double energySaved;
+
+        public UserImpact(int userId, String userName, long enforcementCount, double energySaved) {
+            this.userId = userId;
+            this.userName = userName;
+            this.enforcementCount = enforcementCount;
+            this.energySaved = energySaved;
+        }
+
+        public int getUserId() { return userId; }
+        public String getUserName() { return userName; }
+        public long getEnforcementCount() { return enforcementCount; }
+        public double getEnergySaved() { return energySaved; }
+    }
+}
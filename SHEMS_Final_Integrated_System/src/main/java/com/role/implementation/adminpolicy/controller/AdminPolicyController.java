@@ -1,5 +1,7 @@
 package com.role.implementation.adminpolicy.controller;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
 
@@ -7,6 +9,8 @@ import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -14,13 +18,20 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.role.implementation.DTO.PolicySimulationResultDTO;
 import com.role.implementation.adminpolicy.model.EnergyPolicy;
-import com.role.implementation.adminpolicy.model.PolicyEnforcementLog;
 import com.role.implementation.adminpolicy.repository.EnergyPolicyRepository;
-import com.role.implementation.adminpolicy.repository.PolicyEnforcementLogRepository;
+import com.role.implementation.adminpolicy.repository.PolicyEnforcementLogReader;
+import com.role.implementation.adminpolicy.repository.PolicyEnforcementLogReader.Cursor;
+import com.role.implementation.adminpolicy.repository.PolicyEnforcementLogReader.LogFilter;
+import com.role.implementation.adminpolicy.repository.PolicyEnforcementLogReader.LogPage;
+import com.role.implementation.adminpolicy.service.EnergyPolicyEngine;
+import com.role.implementation.adminpolicy.service.PolicySimulationService;
 
 @Controller
 public class AdminPolicyController {
@@ -33,7 +44,13 @@ public class AdminPolicyController {
     private EnergyPolicyRepository policyRepository;
 
     @Autowired
-    private PolicyEnforcementLogRepository policyEnforcementLogRepository;
+    private PolicyEnforcementLogReader policyEnforcementLogReader;
+
+    @Autowired
+    private EnergyPolicyEngine energyPolicyEngine;
+
+    @Autowired
+    private PolicySimulationService policySimulationService;
 
     // =========================================================
     // SHOW POLICY PAGE (CREATE + LIST)
@@ -73,11 +90,11 @@ public class AdminPolicyController {
             return "redirect:/admin/policies";
         }
 
-        // ❌ Logical validation
-        if (policy.getStartTime().isAfter(policy.getEndTime())) {
+        // ❌ Logical validation (start after end = overnight window, e.g. 22:00–06:00)
+        if (policy.getStartTime().equals(policy.getEndTime())) {
             redirectAttributes.addFlashAttribute(
                     "error",
-                    "Start time must be before end time."
+                    "Start time and end time must be different."
             );
             redirectAttributes.addFlashAttribute("policy", policy);
             return "redirect:/admin/policies";
@@ -87,6 +104,7 @@ public class AdminPolicyController {
         policy.setEnabled(true);
 
         policyRepository.save(policy);
+        energyPolicyEngine.reload();
 
         redirectAttributes.addFlashAttribute(
                 "success",
@@ -108,6 +126,7 @@ public class AdminPolicyController {
             policy.setEnabled(!policy.isEnabled());
             policyRepository.save(policy);
         });
+        energyPolicyEngine.reload();
 
         redirectAttributes.addFlashAttribute(
                 "success",
@@ -124,31 +143,71 @@ public class AdminPolicyController {
     @ResponseBody
     public List<Long> getActivePolicyIds() {
 
-        LocalTime now = LocalTime.now();
-
-        return policyRepository.findByEnabledTrue()
-                .stream()
-                .filter(p ->
-                        !now.isBefore(p.getStartTime()) &&
-                        !now.isAfter(p.getEndTime())
-                )
-                .map(EnergyPolicy::getId)
-                .toList();
+        return energyPolicyEngine.getActivePolicyIds(LocalTime.now());
     }
 
     // =========================================================
-    // VIEW POLICY ENFORCEMENT LOGS (READ-ONLY)
+    // WHAT-IF SIMULATION (READ-ONLY, NOTHING IS SAVED)
+    // e.g. /admin/policies/simulate?policyName=Peak&startTime=18:00&endTime=22:00
+    //      &energyThreshold=2&scope=ALL_USERS&from=2025-01-01&to=2025-01-31
     // =========================================================
-    @GetMapping("/admin/policies/logs")
-    public String viewPolicyLogs(Model model) {
+    @GetMapping("/admin/policies/simulate")
+    @ResponseBody
+    public PolicySimulationResultDTO simulatePolicy(
+            @ModelAttribute EnergyPolicy candidate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        if (candidate.getStartTime() == null || candidate.getEndTime() == null
+                || candidate.getEnergyThreshold() <= 0 || from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "startTime, endTime, a positive energyThreshold and from <= to are required");
+        }
+
+        // Energy history cannot tell which devices were ON together
+        if (candidate.isLoadCap()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Load cap policies cannot be simulated");
+        }
 
-        List<PolicyEnforcementLog> logs =
-                policyEnforcementLogRepository.findAll(
-                        Sort.by(Sort.Direction.DESC, "enforcedAt")
-                );
+        if (candidate.getScope() == null) {
+            candidate.setScope(EnergyPolicy.SCOPE_ALL_USERS);
+        }
 
-        model.addAttribute("logs", logs);
+        return policySimulationService.simulate(candidate, from, to);
+    }
+
+    // =========================================================
+    // VIEW POLICY ENFORCEMENT LOGS (READ-ONLY, KEYSET PAGED)
+    // e.g. /admin/policies/logs?policy=Peak&from=2025-01-01
+    //      &beforeAt=2025-01-05T18:30:00&beforeId=812
+    // =========================================================
+    @GetMapping("/admin/policies/logs")
+    public String viewPolicyLogs(
+            @RequestParam(required = false) String policy,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) Long deviceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeAt,
+            @RequestParam(required = false) Long beforeId,
+            Model model) {
+
+        LogFilter filter = new LogFilter(blankToNull(policy), blankToNull(user),
+                deviceId, from, to);
+        Cursor after = beforeAt != null && beforeId != null ? new Cursor(beforeAt, beforeId) : null;
+
+        LogPage page = policyEnforcementLogReader.findPage(filter, after);
+
+        model.addAttribute("logs", page.logs());
+        model.addAttribute("next", page.next());
+        model.addAttribute("filter", filter);
+        model.addAttribute("firstPage", after == null);
 
         return "policy-enforcement-logs";
     }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
 }
@@ -13,6 +13,12 @@ import org.springframework.format.annotation.DateTimeFormat;
 @Table(name = "energy_policies")
 public class EnergyPolicy {
 
+    public static final String SCOPE_ALL_USERS = "ALL_USERS";
+    public static final String SCOPE_HIGH_USAGE_USERS = "HIGH_USAGE_USERS";
+
+    public static final String TYPE_ENERGY_THRESHOLD = "ENERGY_THRESHOLD";
+    public static final String TYPE_LOAD_CAP = "LOAD_CAP";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -33,11 +39,16 @@ public class EnergyPolicy {
     @Column(nullable = false)
     private LocalTime endTime;
 
-    // Energy threshold in kWh
+    // ENERGY_THRESHOLD: today's kWh per device
+    // LOAD_CAP: kW of all ON devices per household (instantaneous)
     @Positive(message = "Energy threshold must be greater than 0")
     @Column(nullable = false)
     private double energyThreshold;
 
+    // ENERGY_THRESHOLD or LOAD_CAP (null on rows created before types existed)
+    @Column(length = 20)
+    private String policyType = TYPE_ENERGY_THRESHOLD;
+
     // ALL_USERS or HIGH_USAGE_USERS
     @NotBlank(message = "Scope is required")
     @Column(nullable = false)
@@ -90,6 +101,18 @@ public class EnergyPolicy {
         this.energyThreshold = energyThreshold;
     }
 
+    public String getPolicyType() {
+        return policyType != null ? policyType : TYPE_ENERGY_THRESHOLD;
+    }
+
+    public void setPolicyType(String policyType) {
+        this.policyType = policyType;
+    }
+
+    public boolean isLoadCap() {
+        return TYPE_LOAD_CAP.equals(policyType);
+    }
+
     public String getScope() {
         return scope;
     }
@@ -3,8 +3,21 @@ package com.role.implementation.adminpolicy.model;
 import java.time.LocalDateTime;
 import javax.persistence.*;
 
+/**
+ * One policy enforcement, or a run of identical ones on the same day
+ * (same policy, device id, user id and threshold) compacted into one row.
+ * Device and user names are kept as they were at enforcement time; the ids
+ * identify them. enforcedAt is the latest occurrence; the indexes serve the
+ * keyset-paged log viewer, newest first, with or without one filter.
+ */
 @Entity
-@Table(name = "policy_enforcement_logs")
+@Table(name = "policy_enforcement_logs",
+       indexes = {
+           @Index(name = "idx_enforcement_time", columnList = "enforced_at, id"),
+           @Index(name = "idx_enforcement_policy_time", columnList = "policy_name, enforced_at, id"),
+           @Index(name = "idx_enforcement_user_time", columnList = "user_name, enforced_at, id"),
+           @Index(name = "idx_enforcement_device_id_time", columnList = "device_id, enforced_at, id")
+       })
 public class PolicyEnforcementLog {
 
     @Id
@@ -15,14 +28,26 @@ public class PolicyEnforcementLog {
     private String deviceName;
     private String userName;
 
+    // Null on rows written before ids were logged
+    private Long deviceId;
+    private Integer userId;
+
     private double energyConsumed;
     private double threshold;
 
     private LocalDateTime enforcedAt;
 
+    // 🔁 Compacted repeats (rows written before compaction read as 1)
+    @Column(nullable = false)
+    private int occurrences = 1;
+
+    // First occurrence of a compacted run; null for a single enforcement
+    private LocalDateTime firstEnforcedAt;
+
     /* ========= Getters & Setters ========= */
 
     public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
 
     public String getPolicyName() { return policyName; }
     public void setPolicyName(String policyName) { this.policyName = policyName; }
@@ -33,6 +58,12 @@ public class PolicyEnforcementLog {
     public String getUserName() { return userName; }
     public void setUserName(String userName) { this.userName = userName; }
 
+    public Long getDeviceId() { return deviceId; }
+    public void setDeviceId(Long deviceId) { this.deviceId = deviceId; }
+
+    public Integer getUserId() { return userId; }
+    public void setUserId(Integer userId) { this.userId = userId; }
+
     public double getEnergyConsumed() { return energyConsumed; }
     public void setEnergyConsumed(double energyConsumed) { this.energyConsumed = energyConsumed; }
 
@@ -41,4 +72,12 @@ public class PolicyEnforcementLog {
 
     public LocalDateTime getEnforcedAt() { return enforcedAt; }
     public void setEnforcedAt(LocalDateTime enforcedAt) { this.enforcedAt = enforcedAt; }
+
+    public int getOccurrences() { return Math.max(1, occurrences); }
+    public void setOccurrences(int occurrences) { this.occurrences = occurrences; }
+
+    public LocalDateTime getFirstEnforcedAt() {
+        return firstEnforcedAt != null ? firstEnforcedAt : enforcedAt;
+    }
+    public void setFirstEnforcedAt(LocalDateTime firstEnforcedAt) { this.firstEnforcedAt = firstEnforcedAt; }
 }
@@ -12,7 +12,7 @@ public interface EnergyPolicyRepository extends JpaRepository<EnergyPolicy, Long
 
     /**
      * Fetch all enabled admin energy policies
-     * Used by EnergyPolicyService scheduler
+     * Compiled into rules by EnergyPolicyEngine
      */
     List<EnergyPolicy> findByEnabledTrue();
 }
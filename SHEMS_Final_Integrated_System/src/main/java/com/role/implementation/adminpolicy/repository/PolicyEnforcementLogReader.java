@@ -0,0 +1,129 @@
+package com.role.implementation.adminpolicy.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.role.implementation.adminpolicy.model.PolicyEnforcementLog;
+
+/**
+ * Keyset (seek) pages of the enforcement log, newest first.
+ *
+ * A page continues strictly after the last (enforced_at, id) of the
+ * previous one, so every page is one index range scan of page-size rows,
+ * however deep it is and however large the history grows. Each filter is
+ * an equality on the leading column of its own index; date bounds narrow
+ * the enforced_at range. Devices are filtered by id, so same-named devices
+ * of different households stay apart.
+ */
+@Repository
+public class PolicyEnforcementLogReader {
+
+    private static final String SELECT_SQL = """
+        SELECT id, policy_name, device_name, user_name, energy_consumed, threshold,
+               enforced_at, occurrences, first_enforced_at, device_id, user_id
+        FROM policy_enforcement_logs
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int pageSize;
+
+    public PolicyEnforcementLogReader(JdbcTemplate jdbcTemplate,
+                                      @Value("${shems.policy.logs.page-size:50}") int pageSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    /**
+     * One page of logs matching the filter, after the cursor (null = newest).
+     */
+    public LogPage findPage(LogFilter filter, Cursor after) {
+
+        StringBuilder sql = new StringBuilder(SELECT_SQL).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+
+        if (filter.policyName() != null) {
+            sql.append(" AND policy_name = ?");
+            args.add(filter.policyName());
+        }
+        if (filter.userName() != null) {
+            sql.append(" AND user_name = ?");
+            args.add(filter.userName());
+        }
+        if (filter.deviceId() != null) {
+            sql.append(" AND device_id = ?");
+            args.add(filter.deviceId());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND enforced_at >= ?");
+            args.add(Timestamp.valueOf(filter.from().atStartOfDay()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND enforced_at < ?");
+            args.add(Timestamp.valueOf(filter.to().plusDays(1).atStartOfDay()));
+        }
+
+        // 🔑 Seek past the previous page
+        if (after != null) {
+            Timestamp at = Timestamp.valueOf(after.enforcedAt());
+            sql.append(" AND (enforced_at < ? OR (enforced_at = ? AND id < ?))");
+            args.add(at);
+            args.add(at);
+            args.add(after.id());
+        }
+
+        // One extra row tells whether an older page exists
+        sql.append(" ORDER BY enforced_at DESC, id DESC LIMIT ?");
+        args.add(pageSize + 1);
+
+        List<PolicyEnforcementLog> logs = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            PolicyEnforcementLog log = new PolicyEnforcementLog();
+            log.setId(rs.getLong(1));
+            log.setPolicyName(rs.getString(2));
+            log.setDeviceName(rs.getString(3));
+            log.setUserName(rs.getString(4));
+            log.setEnergyConsumed(rs.getDouble(5));
+            log.setThreshold(rs.getDouble(6));
+            log.setEnforcedAt(rs.getTimestamp(7).toLocalDateTime());
+            log.setOccurrences(rs.getInt(8));
+            Timestamp first = rs.getTimestamp(9);
+            log.setFirstEnforcedAt(first != null ? first.toLocalDateTime() : null);
+            log.setDeviceId(rs.getObject(10, Long.class));
+            log.setUserId(rs.getObject(11, Integer.class));
+            return log;
+        }, args.toArray());
+
+        if (logs.size() <= pageSize) {
+            return new LogPage(logs, null);
+        }
+
+        List<PolicyEnforcementLog> page = logs.subList(0, pageSize);
+        PolicyEnforcementLog last = page.get(pageSize - 1);
+        return new LogPage(page, new Cursor(last.getEnforcedAt(), last.getId()));
+    }
+
+    /**
+     * Optional filters; null means "any".
+     */
+    public record LogFilter(String policyName, String userName, Long deviceId,
+                            LocalDate from, LocalDate to) {
+    }
+
+    /**
+     * Position of the last row of a page.
+     */
+    public record Cursor(LocalDateTime enforcedAt, long id) {
+    }
+
+    /**
+     * A page of logs and the cursor of the next (older) page, null if none.
+     */
+    public record LogPage(List<PolicyEnforcementLog> logs, Cursor next) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.role.implementation.adminpolicy.repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.role.implementation.adminpolicy.model.PolicyEnforcementLog;
+
+/**
+ * Set-based writes for policy enforcement.
+ *
+ * A demand-response policy can trip thousands of devices in one tick, so
+ * owners are read with a join (no row locks; the switch-off itself is a
+ * conditional UPDATE in DeviceStateUpdater) and logs go in as one JDBC
+ * batch. Runs in the caller's transaction.
+ *
+ * A device tripped again by the same policy on the same day does not get a
+ * new log row: the day's existing row is found by device id with one query
+ * per chunk and its occurrence count is bumped instead. Devices are matched
+ * by id, never by name, so same-named devices keep separate rows.
+ */
+@Repository
+public class PolicyEnforcementWriter {
+
+    private static final String SELECT_ACTIVE_TARGETS_SQL = """
+        SELECT d.id, d.name, d.power_rating, d.user_id, u.name
+        FROM devices d JOIN user u ON u.id = d.user_id
+        WHERE d.status = true AND d.id IN (%s)
+    """;
+
+    private static final String INSERT_LOG_SQL = """
+        INSERT INTO policy_enforcement_logs
+            (policy_name, device_id, device_name, user_id, user_name,
+             energy_consumed, threshold, enforced_at, occurrences)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, 1)
+    """;
+
+    // Today's rows of the tripped devices; latest first so the newest run wins
+    private static final String SELECT_TODAY_LOGS_SQL = """
+        SELECT id, policy_name, device_id, user_id, threshold
+        FROM policy_enforcement_logs
+        WHERE device_id IN (%s) AND enforced_at >= ?
+        ORDER BY enforced_at DESC, id DESC
+    """;
+
+    // first_enforced_at is set before enforced_at moves (MySQL assigns left to right)
+    private static final String COMPACT_LOG_SQL = """
+        UPDATE policy_enforcement_logs
+        SET occurrences = GREATEST(occurrences, 1) + 1,
+            first_enforced_at = COALESCE(first_enforced_at, enforced_at),
+            enforced_at = ?,
+            energy_consumed = ?
+        WHERE id = ?
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+
+    public PolicyEnforcementWriter(JdbcTemplate jdbcTemplate,
+                                   @Value("${shems.energy.ingest.batch-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Devices among {@code deviceIds} that are still ON, with their owner.
+     */
+    public List<EnforcementTarget> findActiveTargets(List<Long> deviceIds) {
+
+        List<EnforcementTarget> targets = new ArrayList<>();
+
+        for (List<Long> chunk : chunks(deviceIds)) {
+            jdbcTemplate.query(SELECT_ACTIVE_TARGETS_SQL.formatted(placeholders(chunk.size())),
+                    rs -> {
+                        targets.add(new EnforcementTarget(rs.getLong(1), rs.getString(2),
+                                rs.getDouble(3), rs.getInt(4), rs.getString(5)));
+                    },
+                    chunk.toArray());
+        }
+
+        return targets;
+    }
+
+    /**
+     * Inserts the logs, folding each into today's identical row if one exists.
+     * All logs of one call share the same enforcement time.
+     */
+    public void insertLogs(List<PolicyEnforcementLog> logs) {
+
+        if (logs.isEmpty()) {
+            return;
+        }
+
+        Map<LogKey, Long> todayRows = findTodayRows(logs);
+        List<Object[]> compacted = new ArrayList<>();
+        List<PolicyEnforcementLog> fresh = new ArrayList<>();
+
+        for (PolicyEnforcementLog log : logs) {
+            Long rowId = todayRows.get(LogKey.of(log));
+            if (rowId != null) {
+                compacted.add(new Object[] {
+                        Timestamp.valueOf(log.getEnforcedAt()), log.getEnergyConsumed(), rowId });
+            } else {
+                fresh.add(log);
+            }
+        }
+
+        if (!compacted.isEmpty()) {
+            jdbcTemplate.batchUpdate(COMPACT_LOG_SQL, compacted);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_LOG_SQL, fresh, chunkSize, (ps, log) -> {
+            ps.setString(1, log.getPolicyName());
+            ps.setLong(2, log.getDeviceId());
+            ps.setString(3, log.getDeviceName());
+            ps.setInt(4, log.getUserId());
+            ps.setString(5, log.getUserName());
+            ps.setDouble(6, log.getEnergyConsumed());
+            ps.setDouble(7, log.getThreshold());
+            ps.setTimestamp(8, Timestamp.valueOf(log.getEnforcedAt()));
+        });
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private Map<LogKey, Long> findTodayRows(List<PolicyEnforcementLog> logs) {
+
+        Timestamp startOfDay = Timestamp.valueOf(logs.get(0).getEnforcedAt().toLocalDate().atStartOfDay());
+        List<Long> deviceIds = logs.stream().map(PolicyEnforcementLog::getDeviceId).distinct().toList();
+        Map<LogKey, Long> rows = new HashMap<>();
+
+        for (List<Long> chunk : chunks(deviceIds)) {
+
+            Object[] args = new Object[chunk.size() + 1];
+            chunk.toArray(args);
+            args[chunk.size()] = startOfDay;
+
+            jdbcTemplate.query(SELECT_TODAY_LOGS_SQL.formatted(placeholders(chunk.size())),
+                    rs -> {
+                        rows.putIfAbsent(new LogKey(rs.getString(2), rs.getLong(3),
+                                rs.getInt(4), rs.getDouble(5)), rs.getLong(1));
+                    },
+                    args);
+        }
+
+        return rows;
+    }
+
+    // Bounded IN lists keep statements well under max_allowed_packet
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    // What makes two enforcements "identical" for compaction
+    private record LogKey(String policyName, long deviceId, int userId, double threshold) {
+
+        private static LogKey of(PolicyEnforcementLog log) {
+            return new LogKey(log.getPolicyName(), log.getDeviceId(), log.getUserId(), log.getThreshold());
+        }
+    }
+
+    /**
+     * A device about to be switched off, with what its log row needs.
+     */
+    public record EnforcementTarget(long deviceId, String deviceName, double powerRating,
+                                    int userId, String userName) {
+    }
+}
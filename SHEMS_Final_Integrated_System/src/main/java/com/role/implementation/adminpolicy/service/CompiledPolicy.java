@@ -0,0 +1,33 @@
+package com.role.implementation.adminpolicy.service;
+
+import java.time.LocalTime;
+
+import com.role.implementation.adminpolicy.model.EnergyPolicy;
+
+/**
+ * Immutable copy of an enabled policy, detached from the entity.
+ * The window [start, end] is inclusive; start after end wraps past midnight.
+ * For load caps, threshold is the household cap in kW.
+ */
+record CompiledPolicy(long id, String name, LocalTime start, LocalTime end,
+                      double threshold, String scope, boolean loadCap) {
+
+    static CompiledPolicy of(EnergyPolicy policy) {
+        return new CompiledPolicy(policy.getId(), policy.getPolicyName(),
+                policy.getStartTime(), policy.getEndTime(),
+                policy.getEnergyThreshold(), policy.getScope(), policy.isLoadCap());
+    }
+
+    boolean wrapsMidnight() {
+        return start.isAfter(end);
+    }
+
+    // Inclusive [start, end] as half-open [from, to); wraps when start > end
+    boolean isActiveAt(long nanoOfDay) {
+        long from = start.toNanoOfDay();
+        long to = end.toNanoOfDay() + 1;
+        return wrapsMidnight()
+                ? nanoOfDay >= from || nanoOfDay < to
+                : nanoOfDay >= from && nanoOfDay < to;
+    }
+}
@@ -0,0 +1,568 @@
+package com.role.implementation.adminpolicy.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.LongToDoubleFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.role.implementation.adminpolicy.model.EnergyPolicy;
+import com.role.implementation.adminpolicy.model.PolicyEnforcementLog;
+import com.role.implementation.adminpolicy.repository.EnergyPolicyRepository;
+import com.role.implementation.adminpolicy.repository.PolicyEnforcementWriter;
+import com.role.implementation.adminpolicy.repository.PolicyEnforcementWriter.EnforcementTarget;
+import com.role.implementation.devicemanagement.repository.DeviceStatusWriter.StatusChange;
+import com.role.implementation.devicemanagement.service.DeviceRegistry;
+import com.role.implementation.devicemanagement.service.DeviceRegistry.DeviceState;
+import com.role.implementation.devicemanagement.service.DeviceStateUpdater;
+import com.role.implementation.energytracking.service.DeviceStatusChangedEvent;
+import com.role.implementation.energytracking.service.EnergyMeteringService;
+import com.role.implementation.energytracking.service.EnergySnapshot;
+import com.role.implementation.energytracking.service.EnergySnapshotService;
+import com.role.implementation.energytracking.service.EnergyTrackingService;
+import com.role.implementation.energytracking.service.HouseholdLoadTracker;
+
+/**
+ * Single evaluator for admin energy policies.
+ *
+ * Enabled policies are compiled once (on startup and whenever an admin
+ * changes one) into rules sorted by threshold and a PolicyWindowIndex over
+ * their daily windows. An evaluation looks up the active rules in the index
+ * (binary search) and compares every ON device in a rule's scope against
+ * the lowest active threshold for that scope, using one bulk energy snapshot.
+ * When only HIGH_USAGE_USERS rules are active, only devices of high-usage
+ * users (see UserUsageClassService) are read.
+ * An evaluation therefore costs O(devices + policies) in memory and a fixed
+ * number of queries, whatever the number of policies.
+ *
+ * Tripped devices are switched off in one transaction with set-based
+ * writes (see PolicyEnforcementWriter).
+ *
+ * A one-shot timer fires exactly when the active set changes (a window
+ * opens or closes) and at midnight, when today's energy restarts. It and
+ * the deadlines run on PolicyDeadlineTimers' own scheduler, not on the
+ * single-threaded pool shared by the @Scheduled jobs.
+ *
+ * Enforcement modes (shems.policy.enforcement-mode):
+ *  - PREDICTIVE: a device's power is constant while it is ON, so the moment
+ *    it crosses its threshold is computed when it turns on (or when the
+ *    rules change) and a deadline timer switches it off at that instant.
+ *    Turning the device off cancels the deadline. No minute polling.
+ *  - POLLING: every device is re-evaluated once a minute.
+ *
+ * LOAD_CAP policies cap the total power of a household's ON devices.
+ * HouseholdLoadTracker keeps every household's running load, so each
+ * turn-on is checked in O(1); only a household over its cap has its ON
+ * devices read, and the lowest-priority ones (largest first) are switched
+ * off until it is back under the cap. Window changes re-check only the
+ * households that have something ON. Caps are enforced in both modes.
+ */
+@Service
+public class EnergyPolicyEngine {
+
+    public static final String MODE_PREDICTIVE = "PREDICTIVE";
+    public static final String MODE_POLLING = "POLLING";
+
+    private static final long NANOS_PER_DAY = 86_400_000_000_000L;
+
+    private final EnergyPolicyRepository policyRepository;
+    private final PolicyEnforcementWriter enforcementWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate shedTransaction;
+    private final DeviceRegistry deviceRegistry;
+    private final DeviceStateUpdater deviceStateUpdater;
+    private final EnergySnapshotService energySnapshotService;
+    private final EnergyTrackingService energyTrackingService;
+    private final UserUsageClassService usageClassService;
+    private final PolicyDeadlineTimers deadlineTimers;
+    private final HouseholdLoadTracker loadTracker;
+    private final boolean predictive;
+
+    private volatile PolicyWindowIndex windowIndex = PolicyWindowIndex.build(List.of());
+
+    // 🏠 userId → devices being shed right now (also the household's lock); only while shedding
+    private final Map<Integer, Set<Long>> pendingShed = new ConcurrentHashMap<>();
+
+    // ⏰ Next window open/close (or midnight) event
+    private ScheduledFuture<?> windowTimer;
+
+    public EnergyPolicyEngine(EnergyPolicyRepository policyRepository,
+                              PolicyEnforcementWriter enforcementWriter,
+                              TransactionTemplate transactionTemplate,
+                              DeviceRegistry deviceRegistry,
+                              DeviceStateUpdater deviceStateUpdater,
+                              EnergySnapshotService energySnapshotService,
+                              EnergyTrackingService energyTrackingService,
+                              UserUsageClassService usageClassService,
+                              PolicyDeadlineTimers deadlineTimers,
+                              HouseholdLoadTracker loadTracker,
+                              @Value("${shems.policy.enforcement-mode:PREDICTIVE}") String mode) {
+        this.policyRepository = policyRepository;
+        this.enforcementWriter = enforcementWriter;
+        this.transactionTemplate = transactionTemplate;
+
+        // Shedding runs from after-commit listeners, so it must not join the finished transaction
+        this.shedTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.shedTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.deviceRegistry = deviceRegistry;
+        this.deviceStateUpdater = deviceStateUpdater;
+        this.energySnapshotService = energySnapshotService;
+        this.energyTrackingService = energyTrackingService;
+        this.usageClassService = usageClassService;
+        this.deadlineTimers = deadlineTimers;
+        this.loadTracker = loadTracker;
+        this.predictive = !MODE_POLLING.equalsIgnoreCase(mode);
+    }
+
+    // =========================================================
+    // 🧩 COMPILATION
+    // =========================================================
+
+    // Usage classes first, so scoped rules are right from the first evaluation
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        usageClassService.refresh();
+        reload();
+    }
+
+    /**
+     * Recompiles the rule set from the enabled policies and re-evaluates.
+     * Must be called after any policy is created, changed or toggled.
+     */
+    public void reload() {
+
+        List<CompiledPolicy> compiled = policyRepository.findByEnabledTrue().stream()
+                .map(CompiledPolicy::of)
+                .sorted(Comparator.comparingDouble(CompiledPolicy::threshold))
+                .toList();
+
+        windowIndex = PolicyWindowIndex.build(compiled);
+        scheduleNextWindowChange();
+
+        evaluate(predictive);
+    }
+
+    /**
+     * Refreshes the usage classes; in predictive mode the deadlines are
+     * re-armed, since a user may have moved into or out of a scope.
+     */
+    @Scheduled(fixedDelayString = "${shems.policy.high-usage.refresh-ms:900000}",
+               initialDelayString = "${shems.policy.high-usage.refresh-ms:900000}")
+    public void refreshUsageClasses() {
+        usageClassService.refresh();
+        if (predictive) {
+            evaluate(true);
+        }
+    }
+
+    // =========================================================
+    // ⏰ WINDOW OPEN / CLOSE EVENTS
+    // =========================================================
+
+    private synchronized void scheduleNextWindowChange() {
+
+        if (windowTimer != null) {
+            windowTimer.cancel(false);
+            windowTimer = null;
+        }
+
+        windowTimer = deadlineTimers.scheduleOnce(this::onWindowChange,
+                Instant.now().plusNanos(nanosUntilNextChange(LocalTime.now())));
+    }
+
+    private void onWindowChange() {
+
+        List<String> active = windowIndex.activeAt(LocalTime.now()).stream()
+                .map(CompiledPolicy::name)
+                .toList();
+        System.out.println("⏰ Active energy policies now: " + active);
+
+        evaluate(predictive);
+        scheduleNextWindowChange();
+    }
+
+    // =========================================================
+    // ⏱ EVALUATION
+    // =========================================================
+
+    /**
+     * Minute poll (POLLING mode only).
+     */
+    @Scheduled(fixedRate = 60000)
+    public void enforcePolicies() {
+        if (!predictive) {
+            evaluate(false);
+        }
+    }
+
+    /**
+     * Brings every household under its load cap, then switches off every
+     * device already over its threshold. With {@code armDeadlines}, all
+     * deadlines are rebuilt for the devices below it.
+     */
+    private void evaluate(boolean armDeadlines) {
+
+        if (armDeadlines) {
+            deadlineTimers.cancelAll();
+        }
+
+        ActiveRules rules = activeRules();
+        if (rules.hasCaps()) {
+            loadTracker.forEachLoadedHousehold(userId -> shedLoad(userId, rules.capFor(userId)));
+        }
+
+        if (rules.isEmpty()) {
+            return;
+        }
+
+        // ON devices come from the registry, not a device table scan
+        List<DeviceState> candidates;
+        if (rules.allRule() != null) {
+            candidates = deviceRegistry.getActiveDevices();
+        } else if (!rules.highUsers().isEmpty()) {
+            candidates = deviceRegistry.getActiveDevices(rules.highUsers());
+        } else {
+            return;
+        }
+
+        // Deadlines need exact current energy, so they skip the dashboard cache
+        LocalDate today = LocalDate.now();
+        EnergySnapshot snapshot = armDeadlines
+                ? energySnapshotService.getSnapshot(today, today.plusDays(1))
+                : energySnapshotService.getTodaySnapshot();
+        long horizonNanos = nanosUntilNextChange(LocalTime.now());
+
+        Map<CompiledPolicy, List<Long>> tripped = new LinkedHashMap<>();
+
+        for (DeviceState device : candidates) {
+            long deviceId = device.id();
+            double powerRating = device.powerRating();
+            int userId = device.userId();
+
+            CompiledPolicy rule = rules.ruleFor(userId);
+            if (rule == null) {
+                continue;
+            }
+
+            double energy = snapshot.getDeviceEnergy(deviceId);
+            if (energy > rule.threshold()) {
+                tripped.computeIfAbsent(rule, r -> new ArrayList<>()).add(deviceId);
+            } else if (armDeadlines) {
+                armDeadline(deviceId, powerRating, energy, rule, horizonNanos);
+            }
+        }
+
+        if (tripped.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status ->
+                tripped.forEach((rule, deviceIds) -> enforce(rule, snapshot::getDeviceEnergy, deviceIds)));
+    }
+
+    // =========================================================
+    // 🎯 PREDICTIVE DEADLINES
+    // =========================================================
+
+    /**
+     * Arms a device's deadline when it turns on and cancels it when it turns
+     * off. Not synchronized with evaluate(): a stale deadline only finds the
+     * device already OFF, and the next re-arm replaces it anyway.
+     *
+     * Runs after the recording transaction has committed, so shedding never
+     * waits on row locks still held by a scene or bulk command.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceStatusChanged(DeviceStatusChangedEvent event) {
+
+        if (!event.on()) {
+            if (predictive) {
+                deadlineTimers.cancel(event.deviceId());
+            }
+            return;
+        }
+
+        ActiveRules rules = activeRules();
+
+        // ⚖️ Load cap: O(1) check of the household's running load
+        if (shedLoad(event.userId(), rules.capFor(event.userId())).contains(event.deviceId())
+                || !predictive) {
+            return;
+        }
+
+        CompiledPolicy rule = rules.ruleFor(event.userId());
+        if (rule == null) {
+            return;
+        }
+
+        double energy = energyTrackingService.getTodayEnergyForDevice(event.deviceId());
+        if (energy > rule.threshold()) {
+            deadlineTimers.schedule(event.deviceId(), Instant.now(), () -> onDeadline(event.deviceId(), rule));
+            return;
+        }
+
+        armDeadline(event.deviceId(), event.powerRating(), energy, rule,
+                nanosUntilNextChange(LocalTime.now()));
+    }
+
+    /**
+     * Energy grows linearly at the device's power while it is ON:
+     * crossing = now + (threshold − energy) / power. Deadlines after the
+     * next window change or midnight are left to the re-arm at that point.
+     */
+    private void armDeadline(long deviceId, double powerRating, double energy,
+                             CompiledPolicy rule, long horizonNanos) {
+
+        double powerInKW = powerRating / 1000.0;
+        if (powerInKW <= 0) {
+            return;
+        }
+
+        // +1 ms so the device is strictly over the threshold when it fires
+        long nanos = (long) ((rule.threshold() - energy) / powerInKW * 3_600_000_000_000.0) + 1_000_000;
+        if (nanos >= horizonNanos) {
+            return;
+        }
+
+        deadlineTimers.schedule(deviceId, Instant.now().plusNanos(nanos), () -> onDeadline(deviceId, rule));
+    }
+
+    private void onDeadline(long deviceId, CompiledPolicy rule) {
+        transactionTemplate.executeWithoutResult(status ->
+                enforce(rule, energyTrackingService::getTodayEnergyForDevice, List.of(deviceId)));
+    }
+
+    // =========================================================
+    // ⚖️ LOAD CAP SHEDDING
+    // =========================================================
+
+    /**
+     * Switches off a household's lowest-priority devices (largest first
+     * within a priority) until its load is within the cap. Returns the ids
+     * chosen; empty when the household is already within the cap.
+     *
+     * The choice is made under the household's own lock, and the chosen
+     * devices stay marked as pending until their switch-off has committed,
+     * so concurrent turn-ons of one household shed only once. The lock is
+     * released before the write, and the write runs in its own transaction.
+     * A household's entry is removed once nothing of it is pending.
+     */
+    private List<Long> shedLoad(int userId, CompiledPolicy cap) {
+
+        if (cap == null) {
+            return List.of();
+        }
+
+        double load = loadTracker.getLoadKw(userId);
+        if (load <= cap.threshold()) {
+            return List.of();
+        }
+
+        Set<Long> pending = null;
+        List<Long> shed = new ArrayList<>();
+
+        while (pending == null) {
+
+            Set<Long> entry = pendingShed.computeIfAbsent(userId, id -> new HashSet<>());
+            synchronized (entry) {
+
+                // A shed that just finished may have removed this entry; take the new one
+                if (pendingShed.get(userId) != entry) {
+                    continue;
+                }
+                pending = entry;
+
+                // Only now are the household's ON devices listed (from the registry)
+                List<DeviceState> devices = deviceRegistry.getActiveDevices(userId);
+                devices.sort(Comparator.comparingInt(DeviceState::priority)
+                        .thenComparing(DeviceState::powerRating, Comparator.reverseOrder()));
+
+                // Devices another thread is already switching off no longer count
+                double remaining = loadTracker.getLoadKw(userId);
+                for (DeviceState device : devices) {
+                    if (pending.contains(device.id())) {
+                        remaining -= device.powerRating() / 1000.0;
+                    }
+                }
+
+                for (DeviceState device : devices) {
+                    if (remaining <= cap.threshold()) {
+                        break;
+                    }
+                    if (pending.add(device.id())) {
+                        shed.add(device.id());
+                        remaining -= device.powerRating() / 1000.0;
+                    }
+                }
+            }
+        }
+
+        try {
+            if (!shed.isEmpty()) {
+                // Logged "energy" is the household load in kW, "threshold" the cap
+                shedTransaction.executeWithoutResult(status -> enforce(cap, deviceId -> load, shed));
+            }
+        } finally {
+            releaseShed(userId, pending, shed);
+        }
+        return shed;
+    }
+
+    private void releaseShed(int userId, Set<Long> pending, List<Long> shed) {
+        synchronized (pending) {
+            shed.forEach(pending::remove);
+            if (pending.isEmpty()) {
+                pendingShed.remove(userId, pending);
+            }
+        }
+    }
+
+    // =========================================================
+    // 📋 READ-ONLY STATUS
+    // =========================================================
+
+    public List<Long> getActivePolicyIds(LocalTime time) {
+        return windowIndex.activeAt(time).stream()
+                .map(CompiledPolicy::id)
+                .toList();
+    }
+
+    public int getPendingDeadlineCount() {
+        return deadlineTimers.size();
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    /**
+     * Switches off the tripped devices that are still ON and logs each one.
+     */
+    private void enforce(CompiledPolicy rule, LongToDoubleFunction energyOf, List<Long> tripped) {
+
+        // Devices turned off since the id list was read drop out here
+        List<EnforcementTarget> targets = enforcementWriter.findActiveTargets(tripped);
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        List<StatusChange> candidates = new ArrayList<>(targets.size());
+        for (EnforcementTarget target : targets) {
+            candidates.add(new StatusChange(target.deviceId(), target.powerRating(), target.userId()));
+        }
+
+        // 🔴 FORCE OFF + ⚡ METER: devices switched off concurrently are not logged again
+        Set<Long> switchedOff = new HashSet<>();
+        for (StatusChange change : deviceStateUpdater.switchDevices(candidates, false,
+                EnergyMeteringService.SOURCE_POLICY)) {
+            switchedOff.add(change.deviceId());
+        }
+        if (switchedOff.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<PolicyEnforcementLog> logs = new ArrayList<>(switchedOff.size());
+
+        for (EnforcementTarget target : targets) {
+            if (!switchedOff.contains(target.deviceId())) {
+                continue;
+            }
+
+            PolicyEnforcementLog log = new PolicyEnforcementLog();
+            log.setPolicyName(rule.name());
+            log.setDeviceId(target.deviceId());
+            log.setDeviceName(target.deviceName());
+            log.setUserId(target.userId());
+            log.setUserName(target.userName() != null ? target.userName() : "UNKNOWN");
+            log.setEnergyConsumed(energyOf.applyAsDouble(target.deviceId()));
+            log.setThreshold(rule.threshold());
+            log.setEnforcedAt(now);
+            logs.add(log);
+        }
+
+        // 🧾 LOGS as one batch
+        enforcementWriter.insertLogs(logs);
+
+        System.out.println("⚡ Policy '" + rule.name() + "' switched off " + logs.size() + " devices");
+    }
+
+    private ActiveRules activeRules() {
+
+        // Lowest threshold (or cap) per scope trips first, so it decides for that scope
+        List<CompiledPolicy> active = windowIndex.activeAt(LocalTime.now());
+        CompiledPolicy allRule = firstOfScope(active, EnergyPolicy.SCOPE_ALL_USERS, false);
+        CompiledPolicy highRule = stricterOnly(firstOfScope(active, EnergyPolicy.SCOPE_HIGH_USAGE_USERS, false), allRule);
+        CompiledPolicy allCap = firstOfScope(active, EnergyPolicy.SCOPE_ALL_USERS, true);
+        CompiledPolicy highCap = stricterOnly(firstOfScope(active, EnergyPolicy.SCOPE_HIGH_USAGE_USERS, true), allCap);
+
+        return new ActiveRules(allRule, highRule, allCap, highCap, usageClassService.getHighUsageUserIds());
+    }
+
+    // A high-usage rule that is not stricter than the all-users rule never decides
+    private static CompiledPolicy stricterOnly(CompiledPolicy highRule, CompiledPolicy allRule) {
+        return allRule != null && highRule != null && highRule.threshold() >= allRule.threshold()
+                ? null : highRule;
+    }
+
+    // Next window change or midnight, whichever comes first
+    private long nanosUntilNextChange(LocalTime time) {
+        long untilMidnight = NANOS_PER_DAY - time.toNanoOfDay();
+        long untilChange = windowIndex.nanosUntilNextChange(time);
+        return untilChange < 0 ? untilMidnight : Math.min(untilChange, untilMidnight);
+    }
+
+    // Rules are in threshold order; unknown scopes count as ALL_USERS
+    private static CompiledPolicy firstOfScope(List<CompiledPolicy> active, String scope, boolean loadCap) {
+        for (CompiledPolicy rule : active) {
+            boolean highUsage = EnergyPolicy.SCOPE_HIGH_USAGE_USERS.equals(rule.scope());
+            if (rule.loadCap() == loadCap && highUsage == EnergyPolicy.SCOPE_HIGH_USAGE_USERS.equals(scope)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The deciding threshold rule and load cap per scope at one point in time.
+     */
+    private record ActiveRules(CompiledPolicy allRule, CompiledPolicy highRule,
+                               CompiledPolicy allCap, CompiledPolicy highCap,
+                               Set<Integer> highUsers) {
+
+        // No threshold rules (caps are checked separately)
+        private boolean isEmpty() {
+            return allRule == null && highRule == null;
+        }
+
+        private boolean hasCaps() {
+            return allCap != null || highCap != null;
+        }
+
+        private CompiledPolicy ruleFor(int userId) {
+            return highRule != null && highUsers.contains(userId) ? highRule : allRule;
+        }
+
+        private CompiledPolicy capFor(int userId) {
+            return highCap != null && highUsers.contains(userId) ? highCap : allCap;
+        }
+    }
+}
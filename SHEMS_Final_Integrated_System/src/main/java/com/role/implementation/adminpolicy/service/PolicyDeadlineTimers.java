@@ -0,0 +1,74 @@
+package com.role.implementation.adminpolicy.service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * One pending threshold-crossing deadline per device.
+ *
+ * Deadlines are one-shot tasks on a scheduler of their own, whose delay
+ * queue is a priority queue ordered by due time, so only the earliest
+ * deadline is ever waited on. Re-arming a device replaces its deadline.
+ *
+ * The scheduler is not shared with the @Scheduled jobs (metering tick,
+ * retention, rollups...), so a deadline fires on time even while one of
+ * them is running. The engine's window-change timer runs on it too.
+ */
+@Component
+class PolicyDeadlineTimers {
+
+    private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+
+    private final Map<Long, ScheduledFuture<?>> deadlines = new ConcurrentHashMap<>();
+
+    PolicyDeadlineTimers(@Value("${shems.policy.timer-threads:1}") int timerThreads) {
+        taskScheduler.setPoolSize(Math.max(1, timerThreads));
+        taskScheduler.setThreadNamePrefix("policy-timer-");
+        taskScheduler.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        taskScheduler.shutdown();
+    }
+
+    // One-shot task outside the per-device deadlines (window changes)
+    ScheduledFuture<?> scheduleOnce(Runnable task, Instant at) {
+        return taskScheduler.schedule(task, at);
+    }
+
+    void schedule(long deviceId, Instant deadline, Runnable action) {
+        ScheduledFuture<?> future = taskScheduler.schedule(() -> {
+            deadlines.remove(deviceId);
+            action.run();
+        }, deadline);
+
+        ScheduledFuture<?> previous = deadlines.put(deviceId, future);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    void cancel(long deviceId) {
+        ScheduledFuture<?> future = deadlines.remove(deviceId);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    void cancelAll() {
+        deadlines.keySet().forEach(this::cancel);
+    }
+
+    int size() {
+        return deadlines.size();
+    }
+}
@@ -0,0 +1,289 @@
+package com.role.implementation.adminpolicy.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.role.implementation.DTO.PolicySimulationResultDTO;
+import com.role.implementation.DTO.PolicySimulationResultDTO.UserImpact;
+import com.role.implementation.adminpolicy.model.EnergyPolicy;
+import com.role.implementation.energytracking.repository.EnergyReadingStreamer;
+import com.role.implementation.model.User;
+import com.role.implementation.repository.UserRepository;
+
+/**
+ * What-if replay of a candidate policy over stored energy_usage history.
+ *
+ * Readings are streamed from the database in device order and cut into
+ * batches of whole devices (primitive arrays, no reading objects). Each
+ * batch is replayed on a fork-join pool while the next one is read; a
+ * semaphore bounds the batches in flight, so memory stays flat however
+ * long the range is.
+ *
+ * Replay model, per device and day: energy counts towards the day's total
+ * from midnight; inside the policy window, once the total would pass the
+ * threshold the device is switched off and the rest of its energy inside
+ * that window is counted as saved. Outside the window it is assumed to be
+ * switched back on. HIGH_USAGE_USERS uses today's usage classes.
+ */
+@Service
+public class PolicySimulationService {
+
+    private static final int BATCH_READINGS = 65_536;
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    private final EnergyReadingStreamer readingStreamer;
+    private final UserUsageClassService usageClassService;
+    private final UserRepository userRepository;
+    private final ForkJoinPool pool;
+
+    public PolicySimulationService(EnergyReadingStreamer readingStreamer,
+                                   UserUsageClassService usageClassService,
+                                   UserRepository userRepository,
+                                   @Value("${shems.policy.simulation.parallelism:0}") int parallelism) {
+        this.readingStreamer = readingStreamer;
+        this.usageClassService = usageClassService;
+        this.userRepository = userRepository;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // =========================================================
+    // 🧪 SIMULATION
+    // =========================================================
+
+    /**
+     * Replays the days from {@code from} to {@code to} (inclusive) against
+     * the candidate policy. The policy is not saved.
+     */
+    public PolicySimulationResultDTO simulate(EnergyPolicy candidate, LocalDate from, LocalDate to) {
+
+        long startedAt = System.currentTimeMillis();
+
+        CompiledPolicy policy = new CompiledPolicy(0L, candidate.getPolicyName(),
+                candidate.getStartTime(), candidate.getEndTime(),
+                candidate.getEnergyThreshold(), candidate.getScope(), false);
+
+        Set<Integer> highUsers = EnergyPolicy.SCOPE_HIGH_USAGE_USERS.equals(candidate.getScope())
+                ? usageClassService.getHighUsageUserIds()
+                : null;
+
+        Semaphore inFlight = new Semaphore(pool.getParallelism() * 2);
+        List<ForkJoinTask<SimulationTotals>> tasks = new ArrayList<>();
+        ReadingBatch[] batch = { new ReadingBatch() };
+
+        readingStreamer.streamReadingsByDevice(from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                (deviceId, userId, energy, timestamp) -> {
+
+                    if (highUsers != null && !highUsers.contains(userId)) {
+                        return;
+                    }
+
+                    // Batches only end between devices
+                    if (batch[0].size >= BATCH_READINGS && batch[0].lastDeviceId() != deviceId) {
+                        tasks.add(submit(batch[0], policy, inFlight));
+                        batch[0] = new ReadingBatch();
+                    }
+                    batch[0].add(deviceId, userId, energy, timestamp);
+                });
+
+        if (batch[0].size > 0) {
+            tasks.add(submit(batch[0], policy, inFlight));
+        }
+
+        SimulationTotals totals = new SimulationTotals();
+        for (ForkJoinTask<SimulationTotals> task : tasks) {
+            totals.merge(task.join());
+        }
+
+        return toResult(totals, from, to, System.currentTimeMillis() - startedAt);
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private ForkJoinTask<SimulationTotals> submit(ReadingBatch batch, CompiledPolicy policy, Semaphore inFlight) {
+        inFlight.acquireUninterruptibly();
+        return pool.submit(() -> {
+            try {
+                return replay(batch, policy);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private static SimulationTotals replay(ReadingBatch batch, CompiledPolicy policy) {
+
+        SimulationTotals totals = new SimulationTotals();
+        double threshold = policy.threshold();
+        int i = 0;
+
+        while (i < batch.size) {
+
+            long deviceId = batch.deviceIds[i];
+            int userId = batch.userIds[i];
+
+            long day = Long.MIN_VALUE;
+            double dayEnergy = 0.0;
+            boolean off = false;
+            long enforcements = 0;
+            double saved = 0.0;
+
+            for (; i < batch.size && batch.deviceIds[i] == deviceId; i++) {
+
+                long second = batch.epochSeconds[i];
+                double energy = batch.energies[i];
+                totals.totalEnergy += energy;
+                totals.readings++;
+
+                long readingDay = Math.floorDiv(second, SECONDS_PER_DAY);
+                if (readingDay != day) {
+                    day = readingDay;
+                    dayEnergy = 0.0;
+                    off = false;
+                }
+
+                long nanoOfDay = (second - readingDay * SECONDS_PER_DAY) * 1_000_000_000L;
+                if (!policy.isActiveAt(nanoOfDay)) {
+                    off = false;
+                    dayEnergy += energy;
+                } else if (off) {
+                    saved += energy;
+                } else if (dayEnergy + energy > threshold) {
+                    // Only the part up to the threshold is consumed before the cut-off
+                    double used = Math.max(0.0, threshold - dayEnergy);
+                    saved += energy - used;
+                    dayEnergy += used;
+                    off = true;
+                    enforcements++;
+                } else {
+                    dayEnergy += energy;
+                }
+            }
+
+            totals.devices++;
+            if (enforcements > 0) {
+                totals.devicesAffected++;
+                totals.enforcements += enforcements;
+                totals.energySaved += saved;
+                totals.addUser(userId, enforcements, saved);
+            }
+        }
+
+        return totals;
+    }
+
+    private PolicySimulationResultDTO toResult(SimulationTotals totals, LocalDate from, LocalDate to,
+                                               long elapsedMillis) {
+
+        Map<Integer, String> names = new HashMap<>();
+        for (User user : userRepository.findAllById(totals.perUser.keySet())) {
+            names.put(user.getId(), user.getName());
+        }
+
+        List<UserImpact> impacts = new ArrayList<>();
+        totals.perUser.forEach((userId, impact) -> impacts.add(new UserImpact(userId,
+                names.getOrDefault(userId, "UNKNOWN"), (long) impact[0], impact[1])));
+        impacts.sort(Comparator.comparingDouble(UserImpact::getEnergySaved).reversed());
+
+        PolicySimulationResultDTO result = new PolicySimulationResultDTO();
+        result.setFrom(from);
+        result.setTo(to);
+        result.setDevicesReplayed(totals.devices);
+        result.setReadingsReplayed(totals.readings);
+        result.setEnforcementCount(totals.enforcements);
+        result.setDevicesAffected(totals.devicesAffected);
+        result.setTotalEnergy(totals.totalEnergy);
+        result.setEnergySaved(totals.energySaved);
+        result.setSavedPercent(totals.totalEnergy > 0 ? totals.energySaved * 100.0 / totals.totalEnergy : 0.0);
+        result.setUserImpacts(impacts);
+        result.setElapsedMillis(elapsedMillis);
+        return result;
+    }
+
+    /**
+     * Readings of whole devices in stream order, as parallel primitive arrays.
+     * Timestamps are local date-times stored as seconds (UTC offset 0), so
+     * floorDiv by a day gives the local day.
+     */
+    private static final class ReadingBatch {
+
+        private long[] deviceIds = new long[1024];
+        private int[] userIds = new int[1024];
+        private double[] energies = new double[1024];
+        private long[] epochSeconds = new long[1024];
+        private int size;
+
+        private void add(long deviceId, int userId, double energy, LocalDateTime timestamp) {
+            if (size == deviceIds.length) {
+                int capacity = size * 2;
+                deviceIds = Arrays.copyOf(deviceIds, capacity);
+                userIds = Arrays.copyOf(userIds, capacity);
+                energies = Arrays.copyOf(energies, capacity);
+                epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+            }
+            deviceIds[size] = deviceId;
+            userIds[size] = userId;
+            energies[size] = energy;
+            epochSeconds[size] = timestamp.toEpochSecond(ZoneOffset.UTC);
+            size++;
+        }
+
+        private long lastDeviceId() {
+            return deviceIds[size - 1];
+        }
+    }
+
+    /**
+     * Counters of one batch; merged on the calling thread.
+     */
+    private static final class SimulationTotals {
+
+        private long devices;
+        private long readings;
+        private long enforcements;
+        private long devicesAffected;
+        private double totalEnergy;
+        private double energySaved;
+
+        // userId → { enforcements, kWh saved }
+        private final Map<Integer, double[]> perUser = new HashMap<>();
+
+        private void addUser(int userId, long userEnforcements, double saved) {
+            double[] impact = perUser.computeIfAbsent(userId, id -> new double[2]);
+            impact[0] += userEnforcements;
+            impact[1] += saved;
+        }
+
+        private void merge(SimulationTotals other) {
+            devices += other.devices;
+            readings += other.readings;
+            enforcements += other.enforcements;
+            devicesAffected += other.devicesAffected;
+            totalEnergy += other.totalEnergy;
+            energySaved += other.energySaved;
+            other.perUser.forEach((userId, impact) -> addUser(userId, (long) impact[0], impact[1]));
+        }
+    }
+}
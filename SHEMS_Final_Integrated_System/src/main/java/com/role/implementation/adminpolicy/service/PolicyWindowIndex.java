@@ -0,0 +1,103 @@
+package com.role.implementation.adminpolicy.service;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Interval index over the daily windows of the compiled policies.
+ *
+ * The day is cut at every window start and end into segments, and each
+ * segment stores the policies active throughout it (in the order given,
+ * i.e. by threshold). Windows that wrap past midnight cover the end of one
+ * day and the start of the next. A lookup is a binary search over the
+ * segment starts, and the next segment start is when the active set
+ * changes next.
+ *
+ * Immutable; the engine builds a new one whenever the policies change.
+ */
+final class PolicyWindowIndex {
+
+    private static final long NANOS_PER_DAY = 86_400_000_000_000L;
+
+    // 🔢 Segment i covers [starts[i], starts[i + 1]) (the last one runs to midnight)
+    private final long[] starts;
+    private final List<List<CompiledPolicy>> active;
+
+    private PolicyWindowIndex(long[] starts, List<List<CompiledPolicy>> active) {
+        this.starts = starts;
+        this.active = active;
+    }
+
+    static PolicyWindowIndex build(List<CompiledPolicy> policies) {
+
+        // Every window start and (exclusive) end cuts the day
+        TreeSet<Long> cuts = new TreeSet<>();
+        cuts.add(0L);
+        for (CompiledPolicy policy : policies) {
+            cuts.add(policy.start().toNanoOfDay());
+            long to = policy.end().toNanoOfDay() + 1;
+            if (to < NANOS_PER_DAY) {
+                cuts.add(to);
+            }
+        }
+
+        // Sweep the segments; neighbours with the same active set are merged
+        List<Long> starts = new ArrayList<>();
+        List<List<CompiledPolicy>> active = new ArrayList<>();
+
+        for (long cut : cuts) {
+            List<CompiledPolicy> here = policies.stream()
+                    .filter(policy -> policy.isActiveAt(cut))
+                    .toList();
+
+            if (active.isEmpty() || !active.get(active.size() - 1).equals(here)) {
+                starts.add(cut);
+                active.add(here);
+            }
+        }
+
+        return new PolicyWindowIndex(starts.stream().mapToLong(Long::longValue).toArray(), active);
+    }
+
+    /**
+     * Policies active at the given time, in threshold order.
+     */
+    List<CompiledPolicy> activeAt(LocalTime time) {
+        return active.get(segmentOf(time.toNanoOfDay()));
+    }
+
+    /**
+     * Nanoseconds from {@code time} until the active set next changes,
+     * or -1 if it never changes (no policies, or only all-day ones).
+     */
+    long nanosUntilNextChange(LocalTime time) {
+
+        if (starts.length == 1) {
+            return -1;
+        }
+
+        long now = time.toNanoOfDay();
+        int next = segmentOf(now) + 1;
+
+        return next < starts.length
+                ? starts[next] - now
+                : NANOS_PER_DAY - now + starts[firstChangeOfDay()];
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private int segmentOf(long nanoOfDay) {
+        int i = Arrays.binarySearch(starts, nanoOfDay);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    // Midnight is only a change if the last and first segments differ
+    private int firstChangeOfDay() {
+        return active.get(starts.length - 1).equals(active.get(0)) ? 1 : 0;
+    }
+}
@@ -0,0 +1,83 @@
+package com.role.implementation.adminpolicy.service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.role.implementation.energytracking.model.EnergyRollup;
+import com.role.implementation.energytracking.repository.EnergyUsageRepository;
+import com.role.implementation.energytracking.service.EnergyMeteringService;
+
+/**
+ * Usage classes of users, for policy scopes.
+ *
+ * A user is HIGH usage when their rolling consumption over the last
+ * shems.policy.high-usage.days days (today included) puts them in the top
+ * shems.policy.high-usage.top-percent of users with any consumption.
+ * The class table is rebuilt from one grouped rollup query by the policy
+ * engine (on startup and periodically) and read lock-free.
+ */
+@Service
+public class UserUsageClassService {
+
+    private final EnergyUsageRepository energyUsageRepository;
+    private final EnergyMeteringService energyMeteringService;
+    private final int days;
+    private final double topPercent;
+
+    private volatile Set<Integer> highUsageUserIds = Set.of();
+
+    public UserUsageClassService(EnergyUsageRepository energyUsageRepository,
+                                 EnergyMeteringService energyMeteringService,
+                                 @Value("${shems.policy.high-usage.days:7}") int days,
+                                 @Value("${shems.policy.high-usage.top-percent:20}") double topPercent) {
+        this.energyUsageRepository = energyUsageRepository;
+        this.energyMeteringService = energyMeteringService;
+        this.days = Math.max(1, days);
+        this.topPercent = Math.max(0, Math.min(topPercent, 100));
+    }
+
+    // =========================================================
+    // 🔄 REFRESH
+    // =========================================================
+
+    public void refresh() {
+
+        LocalDate today = LocalDate.now();
+        Map<Integer, Double> rolling = new HashMap<>();
+
+        energyUsageRepository.forEachBucketTotal(EnergyRollup.SCOPE_USER,
+                today.minusDays(days - 1), today.plusDays(1), EnergyRollup.DAY,
+                (userId, day, energy) -> rolling.merge((int) userId, energy, Double::sum));
+
+        energyMeteringService.forEachPending((deviceId, userId, energy) ->
+                rolling.merge(userId, energy, Double::sum));
+
+        long consumers = rolling.values().stream().filter(energy -> energy > 0).count();
+        long highCount = (long) Math.ceil(consumers * topPercent / 100.0);
+
+        highUsageUserIds = rolling.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed())
+                .limit(highCount)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    // =========================================================
+    // 📋 LOOKUPS
+    // =========================================================
+
+    public boolean isHighUsage(int userId) {
+        return highUsageUserIds.contains(userId);
+    }
+
+    public Set<Integer> getHighUsageUserIds() {
+        return highUsageUserIds;
+    }
+}
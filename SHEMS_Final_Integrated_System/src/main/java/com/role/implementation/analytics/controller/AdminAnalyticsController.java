@@ -54,11 +54,8 @@ public class AdminAnalyticsController {
 
         // 🆕 Convert User IDs → User Names for display
         Map<Integer, String> userNames = new HashMap<>();
-        for (Integer userId : userPeakMap.keySet()) {
-            User user = userRepository.findById(userId).orElse(null);
-            if (user != null) {
-                userNames.put(userId, user.getName());
-            }
+        for (User user : userRepository.findAllById(userPeakMap.keySet())) {
+            userNames.put(user.getId(), user.getName());
         }
         model.addAttribute("userNames", userNames);
 
@@ -8,66 +8,94 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import com.role.implementation.devicemanagement.model.Device;
+import com.role.implementation.cache.CacheConfig;
 import com.role.implementation.devicemanagement.repository.DeviceRepository;
+import com.role.implementation.energytracking.model.EnergyRollup;
 import com.role.implementation.energytracking.repository.EnergyUsageRepository;
+import com.role.implementation.energytracking.service.ClosedPeriodEnergyCache;
+import com.role.implementation.energytracking.service.EnergyMeteringService;
+import com.role.implementation.energytracking.service.EnergySnapshot;
+import com.role.implementation.energytracking.service.EnergySnapshotService;
 
 @Service
 public class AdminAnalyticsServiceImpl implements AdminAnalyticsService {
 
     private final EnergyUsageRepository energyRepo;
     private final DeviceRepository deviceRepo;
+    private final EnergyMeteringService energyMeteringService;
+    private final EnergySnapshotService energySnapshotService;
+    private final ClosedPeriodEnergyCache closedPeriodCache;
 
     public AdminAnalyticsServiceImpl(EnergyUsageRepository energyRepo,
-                                     DeviceRepository deviceRepo) {
+                                     DeviceRepository deviceRepo,
+                                     EnergyMeteringService energyMeteringService,
+                                     EnergySnapshotService energySnapshotService,
+                                     ClosedPeriodEnergyCache closedPeriodCache) {
         this.energyRepo = energyRepo;
         this.deviceRepo = deviceRepo;
+        this.energyMeteringService = energyMeteringService;
+        this.energySnapshotService = energySnapshotService;
+        this.closedPeriodCache = closedPeriodCache;
     }
 
     // ================= TOTAL SYSTEM ENERGY TODAY =================
     @Override
+    @Cacheable(cacheNames = CacheConfig.SYSTEM_ANALYTICS, key = "#root.methodName + ':' + @energyCacheKeys.system()")
     public double getTotalEnergyToday() {
         LocalDateTime start = LocalDate.now().atStartOfDay();
         Double energy = energyRepo.getTotalEnergyBetween(start, LocalDateTime.now());
-        return energy != null ? energy : 0.0;
+        return (energy != null ? energy : 0.0) + energyMeteringService.getPendingEnergyTotal();
     }
 
     // ================= TOTAL SYSTEM ENERGY THIS WEEK =================
     @Override
+    @Cacheable(cacheNames = CacheConfig.SYSTEM_ANALYTICS, key = "#root.methodName + ':' + @energyCacheKeys.system()")
     public double getTotalEnergyThisWeek() {
-        LocalDateTime start = LocalDate.now().minusDays(6).atStartOfDay();
-        Double energy = energyRepo.getTotalEnergyBetween(start, LocalDateTime.now());
-        return energy != null ? energy : 0.0;
+        double total = getSystemLast7DaysByDate().values().stream()
+                .mapToDouble(Double::doubleValue).sum();
+        return total + energyMeteringService.getPendingEnergyTotal();
     }
 
     // ================= SYSTEM ENERGY LAST 7 DAYS =================
     @Override
+    @Cacheable(cacheNames = CacheConfig.SYSTEM_ANALYTICS, key = "#root.methodName + ':' + @energyCacheKeys.system()")
     public Map<String, Double> getSystemLast7DaysEnergy() {
 
         Map<String, Double> weeklyEnergy = new LinkedHashMap<>();
+        LocalDate today = LocalDate.now();
 
-        for (int i = 6; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusDays(i);
-
-            LocalDateTime start = date.atStartOfDay();
-            LocalDateTime end = date.atTime(23, 59, 59);
+        getSystemLast7DaysByDate().forEach((date, energy) -> {
+            double value = energy;
 
-            Double energy = energyRepo.getTotalEnergyBetween(start, end);
+            // ➕ Today also includes energy not yet written to energy_usage
+            if (date.equals(today)) value += energyMeteringService.getPendingEnergyTotal();
 
             String label = date.getDayOfWeek()
                     .getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
 
-            weeklyEnergy.put(label, energy != null ? energy : 0.0);
-        }
+            weeklyEnergy.put(label, value);
+        });
 
         return weeklyEnergy;
     }
 
+    // 📦 Six closed days from memory, only today from the database
+    private Map<LocalDate, Double> getSystemLast7DaysByDate() {
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, Double> days = closedPeriodCache.getDailyTotals(EnergyRollup.SCOPE_SYSTEM,
+                EnergyRollup.SYSTEM_ID, today.minusDays(6), today);
+        days.putAll(energyRepo.sumByBucket(EnergyRollup.SCOPE_SYSTEM, EnergyRollup.SYSTEM_ID,
+                today, today.plusDays(1), EnergyRollup.DAY));
+        return days;
+    }
+
     // ================= TOP 5 ENERGY CONSUMING DEVICES TODAY =================
     @Override
+    @Cacheable(cacheNames = CacheConfig.SYSTEM_ANALYTICS, key = "#root.methodName + ':' + @energyCacheKeys.system()")
     public Map<String, Double> getTop5DevicesToday() {
 
         LocalDateTime start = LocalDate.now().atStartOfDay();
@@ -89,25 +117,27 @@ public class AdminAnalyticsServiceImpl implements AdminAnalyticsService {
 
     // ================= ACTIVE DEVICES COUNT =================
     @Override
+    @Cacheable(cacheNames = CacheConfig.SYSTEM_ANALYTICS, key = "#root.methodName + ':' + @energyCacheKeys.system()")
     public long getActiveDeviceCount() {
         return deviceRepo.countByStatus(true);
     }
 
     // ================= USERS WITH PEAK DEVICE USAGE TODAY =================
     @Override
+    @Cacheable(cacheNames = CacheConfig.SYSTEM_ANALYTICS, key = "#root.methodName + ':' + @energyCacheKeys.system()")
     public Map<Integer, Boolean> getUsersWithPeakUsage() {
 
-        LocalDateTime start = LocalDate.now().atStartOfDay();
-        LocalDateTime end = LocalDateTime.now();
         double PEAK_THRESHOLD = 2.0;
 
         Map<Integer, Boolean> userPeakMap = new LinkedHashMap<>();
-        List<Device> allDevices = deviceRepo.findAll();
 
-        for (Device device : allDevices) {
-            Integer userId = device.getUser().getId();
-            Double energy = energyRepo.getTotalEnergyForDeviceBetween(device, start, end);
-            double value = energy != null ? energy : 0.0;
+        // 📸 Every device's energy today from one grouped query
+        EnergySnapshot today = energySnapshotService.getTodaySnapshot();
+
+        for (Object[] row : deviceRepo.findAllDeviceOwnerIds()) {
+            long deviceId = ((Number) row[0]).longValue();
+            Integer userId = ((Number) row[1]).intValue();
+            double value = today.getDeviceEnergy(deviceId);
 
             if (value >= PEAK_THRESHOLD) {
                 userPeakMap.put(userId, true);
@@ -121,6 +151,7 @@ public class AdminAnalyticsServiceImpl implements AdminAnalyticsService {
 
     // ================= SYSTEM RECOMMENDATIONS =================
     @Override
+    @Cacheable(cacheNames = CacheConfig.SYSTEM_ANALYTICS, key = "#root.methodName + ':' + @energyCacheKeys.system()")
     public Map<String, String> getSystemRecommendations() {
 
         Map<String, String> recommendations = new LinkedHashMap<>();
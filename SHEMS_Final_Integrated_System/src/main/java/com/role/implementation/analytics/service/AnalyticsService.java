@@ -1,13 +1,19 @@
 package com.role.implementation.analytics.service;
 
+import com.role.implementation.cache.CacheConfig;
 import com.role.implementation.devicemanagement.model.Device;
 import com.role.implementation.devicemanagement.service.DeviceService;
+import com.role.implementation.energytracking.model.EnergyRollup;
 import com.role.implementation.energytracking.repository.EnergyUsageRepository;
+import com.role.implementation.energytracking.service.ClosedPeriodEnergyCache;
+import com.role.implementation.energytracking.service.EnergyService;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.TextStyle;
 import java.util.*;
 
@@ -16,31 +22,31 @@ public class AnalyticsService {
 
     private final EnergyUsageRepository energyRepo;
     private final DeviceService deviceService;
+    private final EnergyService energyService;
+    private final ClosedPeriodEnergyCache closedPeriodCache;
 
     public AnalyticsService(EnergyUsageRepository energyRepo,
-                            DeviceService deviceService) {
+                            DeviceService deviceService,
+                            EnergyService energyService,
+                            ClosedPeriodEnergyCache closedPeriodCache) {
         this.energyRepo = energyRepo;
         this.deviceService = deviceService;
+        this.energyService = energyService;
+        this.closedPeriodCache = closedPeriodCache;
     }
 
     // ================= USER — LAST 7 DAYS ENERGY =================
+    @Cacheable(cacheNames = CacheConfig.USER_ANALYTICS, key = "#root.methodName + ':' + @energyCacheKeys.user(#userId)")
     public Map<String, Double> getLast7DaysEnergy(Integer userId) {
 
         Map<String, Double> dailyEnergy = new LinkedHashMap<>();
 
-        for (int i = 6; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusDays(i);
-
-            LocalDateTime start = date.atStartOfDay();
-            LocalDateTime end = date.atTime(23, 59, 59);
-
-            Double energy = energyRepo.getTotalEnergyForUserBetween(userId, start, end);
-
+        getLast7DaysByDate(userId).forEach((date, value) -> {
             String dayLabel = date.getDayOfWeek()
                     .getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
 
-            dailyEnergy.put(dayLabel, energy != null ? energy : 0.0);
-        }
+            dailyEnergy.put(dayLabel, value);
+        });
 
         return dailyEnergy;
     }
@@ -51,57 +57,55 @@ public class AnalyticsService {
         Map<String, Double> map = new LinkedHashMap<>();
         List<Device> devices = deviceService.getDevicesForLoggedUser();
 
-        LocalDateTime start = LocalDate.now().atStartOfDay();
-        LocalDateTime end = LocalDateTime.now();
-
         for (Device device : devices) {
-            Double energy = energyRepo.getTotalEnergyForDeviceBetween(device, start, end);
-            map.put(device.getName(), energy != null ? energy : 0.0);
+            map.put(device.getName(), energyService.getTodayEnergyForDevice(device));
         }
 
         return map;
     }
 
     // ================= USER — LAST 6 MONTHS ENERGY TREND =================
+    @Cacheable(cacheNames = CacheConfig.USER_ANALYTICS, key = "#root.methodName + ':' + @energyCacheKeys.user(#userId)")
     public Map<String, Double> getLast6MonthsEnergy(Integer userId) {
 
         Map<String, Double> monthlyEnergy = new LinkedHashMap<>();
 
-        for (int i = 5; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusMonths(i);
+        LocalDate today = LocalDate.now();
+        YearMonth currentMonth = YearMonth.from(today);
 
-            LocalDateTime start = date.withDayOfMonth(1).atStartOfDay();
-            LocalDateTime end = date.withDayOfMonth(date.lengthOfMonth()).atTime(23, 59, 59);
+        // 📦 Closed months never change, so they come from memory
+        Map<LocalDate, Double> buckets = closedPeriodCache.getMonthlyTotals(EnergyRollup.SCOPE_USER,
+                userId.longValue(), currentMonth.minusMonths(5), currentMonth);
 
-            Double energy = energyRepo.getTotalEnergyForUserBetween(userId, start, end);
+        // 🔥 Current month = its closed days + today live
+        double currentMonthEnergy = closedPeriodCache.getDailyTotals(EnergyRollup.SCOPE_USER,
+                userId.longValue(), currentMonth.atDay(1), today).values().stream()
+                .mapToDouble(Double::doubleValue).sum();
+        buckets.put(currentMonth.atDay(1), currentMonthEnergy + energyService.getTodayEnergyForUser(userId));
 
-            String label = date.getMonth()
+        buckets.forEach((month, energy) -> {
+            String label = month.getMonth()
                     .getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
 
-            monthlyEnergy.put(label, energy != null ? energy : 0.0);
-        }
+            monthlyEnergy.put(label, energy);
+        });
 
         return monthlyEnergy;
     }
 
     // ================= USER — PEAK USAGE DAY =================
+    @Cacheable(cacheNames = CacheConfig.USER_ANALYTICS, key = "#root.methodName + ':' + @energyCacheKeys.user(#userId)")
     public String getPeakUsageDay(Integer userId) {
 
         double maxEnergy = 0;
         String peakDay = "N/A";
 
-        for (int i = 6; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusDays(i);
-
-            LocalDateTime start = date.atStartOfDay();
-            LocalDateTime end = date.atTime(23, 59, 59);
-
-            Double energy = energyRepo.getTotalEnergyForUserBetween(userId, start, end);
-            double value = energy != null ? energy : 0.0;
+        for (Map.Entry<LocalDate, Double> day : getLast7DaysByDate(userId).entrySet()) {
+            double value = day.getValue();
 
             if (value > maxEnergy) {
                 maxEnergy = value;
-                peakDay = date.getDayOfWeek()
+                peakDay = day.getKey().getDayOfWeek()
                         .getDisplayName(TextStyle.FULL, Locale.ENGLISH);
             }
         }
@@ -110,15 +114,12 @@ public class AnalyticsService {
     }
 
     // ================= USER — ENERGY SAVING RECOMMENDATIONS =================
+    @Cacheable(cacheNames = CacheConfig.USER_ANALYTICS, key = "#root.methodName + ':' + @energyCacheKeys.user(#userId)")
     public List<String> getEnergySavingRecommendations(Integer userId) {
 
         List<String> tips = new ArrayList<>();
 
-        LocalDateTime start = LocalDate.now().atStartOfDay();
-        LocalDateTime end = LocalDateTime.now();
-
-        Double energyObj = energyRepo.getTotalEnergyForUserBetween(userId, start, end);
-        double todayEnergy = energyObj != null ? energyObj : 0.0;
+        double todayEnergy = energyService.getTodayEnergyForUser(userId);
 
         if (todayEnergy > 8) {
             tips.add("Your energy usage is very high today. Try reducing AC or heater usage.");
@@ -155,4 +156,19 @@ public class AnalyticsService {
 
         return map;
     }
+
+    // ================= INTERNAL — LAST 7 DAYS BY DATE =================
+    private Map<LocalDate, Double> getLast7DaysByDate(Integer userId) {
+
+        LocalDate today = LocalDate.now();
+
+        // 📦 Past days are closed and come from memory
+        Map<LocalDate, Double> days = closedPeriodCache.getDailyTotals(EnergyRollup.SCOPE_USER,
+                userId.longValue(), today.minusDays(6), today);
+
+        // 🔥 Today (still changing) comes from the in-memory hot store
+        days.put(today, energyService.getTodayEnergyForUser(userId));
+
+        return days;
+    }
 }
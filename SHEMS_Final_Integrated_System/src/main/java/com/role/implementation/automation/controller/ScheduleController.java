@@ -2,11 +2,13 @@ package com.role.implementation.automation.controller;
 
 import com.role.implementation.automation.model.DeviceSchedule;
 import com.role.implementation.automation.repository.DeviceScheduleRepository;
+import com.role.implementation.automation.service.AutomationService;
 import com.role.implementation.devicemanagement.model.Device;
 import com.role.implementation.devicemanagement.service.DeviceService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
 
@@ -16,11 +18,14 @@ public class ScheduleController {
 
     private final DeviceService deviceService;
     private final DeviceScheduleRepository scheduleRepo;
+    private final AutomationService automationService;
 
     public ScheduleController(DeviceService deviceService,
-                              DeviceScheduleRepository scheduleRepo) {
+                              DeviceScheduleRepository scheduleRepo,
+                              AutomationService automationService) {
         this.deviceService = deviceService;
         this.scheduleRepo = scheduleRepo;
+        this.automationService = automationService;
     }
 
     // Show schedule page
@@ -37,8 +42,18 @@ public class ScheduleController {
 
     // Add new schedule
     @PostMapping("/add")
-    public String addSchedule(@ModelAttribute DeviceSchedule schedule) {
-        scheduleRepo.save(schedule);
+    public String addSchedule(@ModelAttribute DeviceSchedule schedule,
+                              RedirectAttributes redirectAttributes) {
+
+        // ❌ Recurrence rules that do not compile are never saved
+        try {
+            automationService.validate(schedule);
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+            return "redirect:/schedules";
+        }
+
+        automationService.scheduleSaved(scheduleRepo.save(schedule));
         return "redirect:/schedules";
     }
 
@@ -48,7 +63,7 @@ public class ScheduleController {
         DeviceSchedule schedule = scheduleRepo.findById(id).orElse(null);
         if (schedule != null) {
             schedule.setEnabled(!schedule.isEnabled());
-            scheduleRepo.save(schedule);
+            automationService.scheduleSaved(scheduleRepo.save(schedule));
         }
         return "redirect:/schedules";
     }
@@ -57,6 +72,7 @@ public class ScheduleController {
     @GetMapping("/delete/{id}")
     public String deleteSchedule(@PathVariable Long id) {
         scheduleRepo.deleteById(id);
+        automationService.scheduleRemoved(id);
         return "redirect:/schedules";
     }
 }
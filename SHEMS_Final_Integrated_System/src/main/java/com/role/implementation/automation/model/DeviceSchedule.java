@@ -4,6 +4,7 @@ import com.role.implementation.devicemanagement.model.Device;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.persistence.*;
+import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
@@ -24,6 +25,30 @@ public class DeviceSchedule {
     @DateTimeFormat(pattern = "HH:mm")
     private LocalTime offTime;
 
+    // ===== Recurrence (all optional; empty = every day, forever) =====
+
+    // e.g. "MON,TUE,WED,THU,FRI"
+    @Column(length = 40)
+    private String daysOfWeek;
+
+    // Inclusive date range the schedule runs in
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    // Dates it is skipped, e.g. "2025-12-25,2026-01-01"
+    @Column(length = 1000)
+    private String excludedDates;
+
+    // Spring cron ("sec min hour day month weekday"); replaces onTime / offTime when set
+    @Column(length = 100)
+    private String onCron;
+
+    @Column(length = 100)
+    private String offCron;
+
     private boolean enabled = true;
 
     // ===== Getters & Setters =====
@@ -56,6 +81,54 @@ public class DeviceSchedule {
         this.offTime = offTime;
     }
 
+    public String getDaysOfWeek() {
+        return daysOfWeek;
+    }
+
+    public void setDaysOfWeek(String daysOfWeek) {
+        this.daysOfWeek = daysOfWeek;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public String getExcludedDates() {
+        return excludedDates;
+    }
+
+    public void setExcludedDates(String excludedDates) {
+        this.excludedDates = excludedDates;
+    }
+
+    public String getOnCron() {
+        return onCron;
+    }
+
+    public void setOnCron(String onCron) {
+        this.onCron = onCron;
+    }
+
+    public String getOffCron() {
+        return offCron;
+    }
+
+    public void setOffCron(String offCron) {
+        this.offCron = offCron;
+    }
+
     public boolean isEnabled() {
         return enabled;
     }
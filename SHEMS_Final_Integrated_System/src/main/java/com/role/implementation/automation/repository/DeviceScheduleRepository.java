@@ -3,14 +3,20 @@ package com.role.implementation.automation.repository;
 import com.role.implementation.automation.model.DeviceSchedule;
 import com.role.implementation.devicemanagement.model.Device;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
 public interface DeviceScheduleRepository extends JpaRepository<DeviceSchedule, Long> {
 
-    // 🔹 Get all ACTIVE schedules (used by automation scheduler)
+    // 🔹 Get all ACTIVE schedules
     List<DeviceSchedule> findByEnabledTrue();
 
+    // 🔹 Id + device id + times + recurrence rules of every ACTIVE schedule (builds the fire index, no entity loading)
+    @Query("SELECT s.id, s.device.id, s.onTime, s.offTime, s.daysOfWeek, s.startDate, s.endDate, "
+         + "s.excludedDates, s.onCron, s.offCron FROM DeviceSchedule s WHERE s.enabled = true")
+    List<Object[]> findEnabledScheduleRules();
+
     // 🔹 Delete schedules linked to a device (prevents FK errors when deleting device/user)
     void deleteByDevice(Device device);
 }
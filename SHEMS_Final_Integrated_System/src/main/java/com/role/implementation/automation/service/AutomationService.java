@@ -2,66 +2,213 @@ package com.role.implementation.automation.service;
 
 import com.role.implementation.automation.model.DeviceSchedule;
 import com.role.implementation.automation.repository.DeviceScheduleRepository;
-import com.role.implementation.devicemanagement.model.Device;
-import com.role.implementation.devicemanagement.repository.DeviceRepository;
-import org.springframework.scheduling.annotation.Scheduled;
+import com.role.implementation.automation.service.ScheduleFireIndex.DueAction;
+import com.role.implementation.devicemanagement.repository.DeviceStatusWriter.StatusChange;
+import com.role.implementation.devicemanagement.service.DeviceRegistry;
+import com.role.implementation.devicemanagement.service.DeviceRegistry.DeviceState;
+import com.role.implementation.devicemanagement.service.DeviceStateUpdater;
+import com.role.implementation.energytracking.service.EnergyMeteringService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.concurrent.ScheduledFuture;
 
+import javax.annotation.PreDestroy;
+
+/**
+ * Runs device schedules from an in-memory next-fire index.
+ *
+ * Enabled schedules are loaded once at startup into a ScheduleFireIndex
+ * (a min-heap keyed by the next ON/OFF instant) and kept in step by
+ * ScheduleController on create, toggle and delete. A single one-shot
+ * timer waits for the head of the heap; when it fires, only the due
+ * actions are popped (O(log n) each), so there are no per-tick scans and
+ * an action whose minute was missed by a late timer still runs. The timer
+ * has a scheduler of its own, so the @Scheduled jobs (metering tick,
+ * retention, rollups...) never delay a schedule action.
+ *
+ * Recurrence rules (days of week, date range, exclusions, cron) are
+ * compiled once per schedule, and each schedule precomputes its next
+ * occurrences (shems.automation.occurrence-horizon), so firing never
+ * parses or evaluates a rule.
+ */
 @Service
 public class AutomationService {
 
     private final DeviceScheduleRepository scheduleRepo;
-    private final DeviceRepository deviceRepo;
+    private final DeviceRegistry deviceRegistry;
+    private final DeviceStateUpdater deviceStateUpdater;
+    private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+    private final TransactionTemplate transactionTemplate;
+    private final int occurrenceHorizon;
+
+    private final ScheduleFireIndex fireIndex = new ScheduleFireIndex(ZoneId.systemDefault());
+
+    // ⏰ Timer for the head of the index
+    private ScheduledFuture<?> timer;
+    private Instant timerAt;
 
     public AutomationService(DeviceScheduleRepository scheduleRepo,
-                             DeviceRepository deviceRepo) {
+                             DeviceRegistry deviceRegistry,
+                             DeviceStateUpdater deviceStateUpdater,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${shems.automation.occurrence-horizon:8}") int occurrenceHorizon) {
         this.scheduleRepo = scheduleRepo;
-        this.deviceRepo = deviceRepo;
+        this.deviceRegistry = deviceRegistry;
+        this.deviceStateUpdater = deviceStateUpdater;
+        this.transactionTemplate = transactionTemplate;
+        this.occurrenceHorizon = occurrenceHorizon;
+
+        // One timer is armed at a time, so one thread is enough
+        taskScheduler.setPoolSize(1);
+        taskScheduler.setThreadNamePrefix("schedule-timer-");
+        taskScheduler.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        taskScheduler.shutdown();
     }
 
+    // =========================================================
+    // 🚀 STARTUP
+    // =========================================================
+
     /**
-     * ⏱ Runs every 1 minute
-     * Checks all enabled schedules and updates device ON/OFF state
+     * Builds the index from every enabled schedule (one query).
+     * Actions of the current minute still fire, as they did with minute polling.
      */
-    @Scheduled(fixedRate = 60000)
-    @Transactional
-    public void runSchedules() {
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
 
-        // Current time rounded to minute
-        LocalTime now = LocalTime.now().withSecond(0).withNano(0);
+        Instant after = startOfCurrentMinute();
+        fireIndex.clear();
 
-        List<DeviceSchedule> schedules = scheduleRepo.findByEnabledTrue();
+        for (Object[] row : scheduleRepo.findEnabledScheduleRules()) {
+            long scheduleId = ((Number) row[0]).longValue();
+            try {
+                fireIndex.put(new CompiledSchedule(scheduleId, ((Number) row[1]).longValue(),
+                        ScheduleRecurrence.compile(row), occurrenceHorizon), after);
+            } catch (IllegalArgumentException e) {
+                System.out.println("⚠️ Schedule " + scheduleId + " skipped: " + e.getMessage());
+            }
+        }
 
-        for (DeviceSchedule schedule : schedules) {
+        System.out.println("📅 Automation schedules indexed: " + fireIndex.size());
+        rearm();
+    }
 
-            Device device = schedule.getDevice();
+    // =========================================================
+    // 🔁 INDEX UPDATES (ScheduleController)
+    // =========================================================
 
-            // Skip if device was deleted or not loaded
-            if (device == null) continue;
+    /**
+     * Checks that a schedule's rules compile, before it is saved.
+     *
+     * @throws IllegalArgumentException with a user-facing message if not
+     */
+    public void validate(DeviceSchedule schedule) {
+        ScheduleRecurrence.compile(schedule);
+    }
 
-            // 🔵 TURN ON
-            if (schedule.getOnTime() != null &&
-                now.equals(schedule.getOnTime()) &&
-                !device.isStatus()) {
+    /**
+     * Must be called after a schedule is saved (created or toggled).
+     */
+    public synchronized void scheduleSaved(DeviceSchedule schedule) {
 
-                device.setStatus(true);
-                deviceRepo.save(device);
-                System.out.println("AUTO ON  → " + device.getName() + " at " + now);
-            }
+        if (schedule.isEnabled() && schedule.getDevice() != null) {
+            fireIndex.put(new CompiledSchedule(schedule.getId(), schedule.getDevice().getId(),
+                    ScheduleRecurrence.compile(schedule), occurrenceHorizon), startOfCurrentMinute());
+        } else {
+            fireIndex.remove(schedule.getId());
+        }
+        rearm();
+    }
 
-            // ⚫ TURN OFF
-            if (schedule.getOffTime() != null &&
-                now.equals(schedule.getOffTime()) &&
-                device.isStatus()) {
+    public synchronized void scheduleRemoved(long scheduleId) {
+        fireIndex.remove(scheduleId);
+        rearm();
+    }
 
-                device.setStatus(false);
-                deviceRepo.save(device);
-                System.out.println("AUTO OFF → " + device.getName() + " at " + now);
-            }
+    // =========================================================
+    // ⏱ FIRING
+    // =========================================================
+
+    private void fireDue() {
+
+        List<DueAction> due;
+        synchronized (this) {
+            timer = null;
+            timerAt = null;
+            due = fireIndex.pollDue(Instant.now());
+            rearm();
         }
+
+        if (!due.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> due.forEach(this::apply));
+        }
+    }
+
+    private void apply(DueAction action) {
+
+        DeviceState state = deviceRegistry.get(action.schedule().deviceId());
+
+        // Device deleted (its schedules went with it) → drop from the index
+        if (state == null) {
+            scheduleRemoved(action.schedule().id());
+            return;
+        }
+
+        // Already in the scheduled state → nothing is read or written
+        if (state.on() == action.on()) {
+            return;
+        }
+
+        // Conditional UPDATE: a concurrent toggle to the same state wins quietly
+        List<StatusChange> changed = deviceStateUpdater.switchDevices(
+                List.of(new StatusChange(state.id(), state.powerRating(), state.userId())),
+                action.on(), EnergyMeteringService.SOURCE_SCHEDULE);
+
+        if (!changed.isEmpty()) {
+            System.out.println((action.on() ? "AUTO ON  → " : "AUTO OFF → ") + "device " + state.id()
+                    + " at " + LocalTime.ofInstant(action.at(), ZoneId.systemDefault()));
+        }
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    // Keeps exactly one timer, on the earliest live event
+    private void rearm() {
+
+        Instant next = fireIndex.nextFireAt();
+        if (next != null && next.equals(timerAt)) {
+            return;
+        }
+
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+            timerAt = null;
+        }
+
+        if (next != null) {
+            timer = taskScheduler.schedule(this::fireDue, next);
+            timerAt = next;
+        }
+    }
+
+    private static Instant startOfCurrentMinute() {
+        return Instant.now().truncatedTo(ChronoUnit.MINUTES).minusNanos(1);
     }
 }
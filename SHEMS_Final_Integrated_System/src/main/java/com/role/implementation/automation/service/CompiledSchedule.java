@@ -0,0 +1,92 @@
+package com.role.implementation.automation.service;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * An enabled schedule with its next occurrences precomputed.
+ *
+ * Each action (ON, OFF) keeps a small buffer of upcoming instants, filled
+ * from the compiled ScheduleRecurrence. Taking the next instant is an
+ * array read; the rules are evaluated again only once per buffer-full.
+ * Not thread-safe; used under the AutomationService lock.
+ */
+final class CompiledSchedule {
+
+    private final long id;
+    private final long deviceId;
+    private final ScheduleRecurrence recurrence;
+    private final Occurrences onOccurrences;
+    private final Occurrences offOccurrences;
+
+    CompiledSchedule(long id, long deviceId, ScheduleRecurrence recurrence, int horizon) {
+        this.id = id;
+        this.deviceId = deviceId;
+        this.recurrence = recurrence;
+        this.onOccurrences = new Occurrences(true, Math.max(1, horizon));
+        this.offOccurrences = new Occurrences(false, Math.max(1, horizon));
+    }
+
+    long id() {
+        return id;
+    }
+
+    long deviceId() {
+        return deviceId;
+    }
+
+    /**
+     * First ON (or OFF) instant strictly after {@code after}, or null when
+     * the schedule will not perform that action again.
+     */
+    Instant nextFire(boolean on, Instant after, ZoneId zone) {
+        return (on ? onOccurrences : offOccurrences).next(after, zone);
+    }
+
+    /**
+     * Precomputed upcoming instants (epoch millis) of one action.
+     */
+    private final class Occurrences {
+
+        private final boolean on;
+        private final long[] buffer;
+        private int head;
+        private int size;
+        private boolean finished;
+
+        private Occurrences(boolean on, int horizon) {
+            this.on = on;
+            this.buffer = new long[horizon];
+        }
+
+        private Instant next(Instant after, ZoneId zone) {
+
+            long afterMillis = after.toEpochMilli();
+            while (true) {
+                for (; head < size; head++) {
+                    if (buffer[head] > afterMillis) {
+                        return Instant.ofEpochMilli(buffer[head]);
+                    }
+                }
+                if (finished) {
+                    return null;
+                }
+                refill(after, zone);
+            }
+        }
+
+        private void refill(Instant from, ZoneId zone) {
+            head = 0;
+            size = 0;
+            while (size < buffer.length) {
+                Instant at = recurrence.next(on, from, zone);
+                if (at == null) {
+                    finished = true;
+                    return;
+                }
+                buffer[size++] = at.toEpochMilli();
+                from = at;
+            }
+        }
+    }
+}
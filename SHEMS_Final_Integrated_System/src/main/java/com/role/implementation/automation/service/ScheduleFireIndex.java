@@ -0,0 +1,133 @@
+package com.role.implementation.automation.service;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Min-heap of upcoming schedule actions, ordered by fire instant.
+ *
+ * Every enabled schedule has one live ON and one live OFF event. Changing
+ * or removing a schedule bumps its version, so its old events go stale and
+ * are dropped when they reach the head (lazy deletion); the heap is rebuilt
+ * once stale events outnumber live ones. Push and pop are O(log n).
+ * Not thread-safe; AutomationService guards it.
+ */
+final class ScheduleFireIndex {
+
+    private final ZoneId zone;
+
+    private final PriorityQueue<FireEvent> heap = new PriorityQueue<>(
+            Comparator.comparingLong(FireEvent::at).thenComparingLong(FireEvent::scheduleId));
+
+    // 🔑 schedule id → current compiled schedule + version
+    private final Map<Long, Armed> schedules = new HashMap<>();
+
+    private long nextVersion = 1;
+
+    ScheduleFireIndex(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * Adds or replaces a schedule; its first events are after {@code after}.
+     */
+    void put(CompiledSchedule schedule, Instant after) {
+        Armed armed = new Armed(schedule, nextVersion++);
+        schedules.put(schedule.id(), armed);
+        push(armed, true, after);
+        push(armed, false, after);
+        compactIfStale();
+    }
+
+    void remove(long scheduleId) {
+        schedules.remove(scheduleId);
+    }
+
+    void clear() {
+        schedules.clear();
+        heap.clear();
+    }
+
+    int size() {
+        return schedules.size();
+    }
+
+    /**
+     * Instant of the earliest live event, or null when nothing is scheduled.
+     */
+    Instant nextFireAt() {
+        dropStaleHead();
+        FireEvent head = heap.peek();
+        return head != null ? Instant.ofEpochMilli(head.at()) : null;
+    }
+
+    /**
+     * Pops every live event due at {@code now}, in time order, and pushes
+     * each schedule's following event. An action missed by a late timer
+     * still fires (once), so no minute is skipped.
+     */
+    List<DueAction> pollDue(Instant now) {
+
+        List<DueAction> due = new ArrayList<>();
+        long nowMillis = now.toEpochMilli();
+
+        for (dropStaleHead(); !heap.isEmpty() && heap.peek().at() <= nowMillis; dropStaleHead()) {
+            FireEvent event = heap.poll();
+            Armed armed = schedules.get(event.scheduleId());
+            due.add(new DueAction(armed.schedule(), event.on(), Instant.ofEpochMilli(event.at())));
+
+            // Next occurrence after now, not after the missed one, so a long pause fires once
+            push(armed, event.on(), now);
+        }
+
+        return due;
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private void push(Armed armed, boolean on, Instant after) {
+        Instant at = armed.schedule().nextFire(on, after, zone);
+        if (at != null) {
+            heap.add(new FireEvent(at.toEpochMilli(), armed.schedule().id(), on, armed.version()));
+        }
+    }
+
+    private void dropStaleHead() {
+        while (!heap.isEmpty() && isStale(heap.peek())) {
+            heap.poll();
+        }
+    }
+
+    private boolean isStale(FireEvent event) {
+        Armed armed = schedules.get(event.scheduleId());
+        return armed == null || armed.version() != event.version();
+    }
+
+    // Frequent toggles leave stale events behind; rebuild before they dominate
+    private void compactIfStale() {
+        if (heap.size() <= 2 * (2 * schedules.size()) + 64) {
+            return;
+        }
+        heap.removeIf(this::isStale);
+    }
+
+    private record Armed(CompiledSchedule schedule, long version) {
+    }
+
+    private record FireEvent(long at, long scheduleId, boolean on, long version) {
+    }
+
+    /**
+     * An ON or OFF action that is due, with the instant it was scheduled for.
+     */
+    record DueAction(CompiledSchedule schedule, boolean on, Instant at) {
+    }
+}
@@ -0,0 +1,237 @@
+package com.role.implementation.automation.service;
+
+import com.role.implementation.automation.repository.DeviceScheduleRepository;
+import com.role.implementation.devicemanagement.repository.DeviceStatusWriter.StatusChange;
+import com.role.implementation.devicemanagement.service.DeviceRegistry;
+import com.role.implementation.devicemanagement.service.DeviceRegistry.DeviceState;
+import com.role.implementation.devicemanagement.service.DeviceStateUpdater;
+import com.role.implementation.energytracking.model.DeviceStateTransition;
+import com.role.implementation.energytracking.service.ClosedPeriodEnergyCache;
+import com.role.implementation.energytracking.service.EnergyMeteringService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Catches up on schedule actions missed while the application was down
+ * or stalled (long GC pause, blocked scheduler).
+ *
+ * For every device with an enabled schedule, the latest ON/OFF action in
+ * the missed period is found by walking back from now (ScheduleRecurrence.last),
+ * which gives the state the device should be in and since when. Devices in
+ * the wrong state get a transition back-dated to that instant; all status
+ * updates and transitions are written in one batched transaction, and the
+ * energy backfill of the downtime follows as soon as it has committed.
+ * Cost depends on the number of schedules and devices, not on how long
+ * the outage lasted.
+ *
+ * Runs at startup (from the meter's last heartbeat) and whenever the
+ * reconcile tick finds that it was delayed by more than the drift threshold.
+ */
+@Service
+public class ScheduleReconciler {
+
+    private final DeviceScheduleRepository scheduleRepo;
+    private final DeviceRegistry deviceRegistry;
+    private final DeviceStateUpdater deviceStateUpdater;
+    private final EnergyMeteringService energyMeteringService;
+    private final ClosedPeriodEnergyCache closedPeriodCache;
+    private final TransactionTemplate transactionTemplate;
+    private final long tickMillis;
+    private final long driftMillis;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // ⏱ Time of the previous reconcile tick
+    private volatile Instant lastTick;
+
+    public ScheduleReconciler(DeviceScheduleRepository scheduleRepo,
+                              DeviceRegistry deviceRegistry,
+                              DeviceStateUpdater deviceStateUpdater,
+                              EnergyMeteringService energyMeteringService,
+                              ClosedPeriodEnergyCache closedPeriodCache,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${shems.automation.reconcile.tick-ms:30000}") long tickMillis,
+                              @Value("${shems.automation.reconcile.drift-seconds:90}") long driftSeconds) {
+        this.scheduleRepo = scheduleRepo;
+        this.deviceRegistry = deviceRegistry;
+        this.deviceStateUpdater = deviceStateUpdater;
+        this.energyMeteringService = energyMeteringService;
+        this.closedPeriodCache = closedPeriodCache;
+        this.transactionTemplate = transactionTemplate;
+        this.tickMillis = tickMillis;
+        this.driftMillis = driftSeconds * 1000;
+    }
+
+    // =========================================================
+    // 🚀 STARTUP
+    // =========================================================
+
+    /**
+     * Runs right after the meter has reopened intervals from its heartbeat,
+     * and before the schedule index, policies and caches start.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void reconcileAfterRestart() {
+
+        Instant now = Instant.now();
+        lastTick = now;
+
+        LocalDateTime heartbeat = energyMeteringService.getStartupHeartbeat();
+        if (heartbeat == null) {
+            return;
+        }
+
+        System.out.println("⏪ Reconciling automation since " + heartbeat);
+        reconcile(heartbeat.atZone(zone).toInstant(), now, true);
+    }
+
+    // =========================================================
+    // ⏱ DRIFT DETECTION
+    // =========================================================
+
+    @Scheduled(fixedRateString = "${shems.automation.reconcile.tick-ms:30000}")
+    public void checkDrift() {
+
+        Instant now = Instant.now();
+        Instant previous = lastTick;
+        lastTick = now;
+
+        if (previous == null) {
+            return;
+        }
+
+        long drift = Duration.between(previous, now).toMillis() - tickMillis;
+        if (drift > driftMillis) {
+            System.out.println("⏪ Tick delayed by " + drift + " ms, reconciling automation");
+            reconcile(previous, now, false);
+        }
+    }
+
+    // =========================================================
+    // 🔁 RECONCILIATION
+    // =========================================================
+
+    /**
+     * Applies the latest scheduled action of (since, now] to every device
+     * not already in that state. With {@code backfill}, the energy of the
+     * devices that were ON meanwhile is written too (after a restart).
+     */
+    private synchronized void reconcile(Instant since, Instant now, boolean backfill) {
+
+        Map<Long, DesiredState> desired = desiredStates(since, now);
+        List<DeviceStateTransition> corrections = corrections(desired);
+
+        List<StatusChange> turnOn = new ArrayList<>();
+        List<StatusChange> turnOff = new ArrayList<>();
+        for (DeviceStateTransition correction : corrections) {
+            (correction.isStatus() ? turnOn : turnOff).add(new StatusChange(correction.getDeviceId(),
+                    correction.getPowerRating(), correction.getUserId()));
+        }
+
+        List<DeviceStateTransition> applied = new ArrayList<>(corrections.size());
+
+        // 🔁 STATUS → ⚡ TRANSITIONS in one transaction → ⏪ ENERGY after commit
+        transactionTemplate.executeWithoutResult(status -> {
+
+            // Devices switched concurrently since the registry read keep their newer state
+            Set<Long> changed = new HashSet<>();
+            deviceStateUpdater.compareAndSwitch(turnOn, true).forEach(change -> changed.add(change.deviceId()));
+            deviceStateUpdater.compareAndSwitch(turnOff, false).forEach(change -> changed.add(change.deviceId()));
+            for (DeviceStateTransition correction : corrections) {
+                if (changed.contains(correction.getDeviceId())) {
+                    applied.add(correction);
+                }
+            }
+
+            energyMeteringService.recordTransitions(applied);
+            if (backfill) {
+                energyMeteringService.backfill(LocalDateTime.ofInstant(now, zone));
+            }
+        });
+
+        // Back-dated energy may land in days that are already cached as closed
+        if (!since.atZone(zone).toLocalDate().equals(now.atZone(zone).toLocalDate())) {
+            closedPeriodCache.clear();
+        }
+
+        long turnedOn = applied.stream().filter(DeviceStateTransition::isStatus).count();
+        System.out.println("⏪ Automation reconciled: " + desired.size() + " scheduled devices, "
+                + turnedOn + " turned ON, " + (applied.size() - turnedOn) + " turned OFF");
+    }
+
+    // Latest scheduled action per device; OFF wins a tie
+    private Map<Long, DesiredState> desiredStates(Instant since, Instant now) {
+
+        Map<Long, DesiredState> desired = new HashMap<>();
+
+        for (Object[] row : scheduleRepo.findEnabledScheduleRules()) {
+
+            ScheduleRecurrence recurrence;
+            try {
+                recurrence = ScheduleRecurrence.compile(row);
+            } catch (IllegalArgumentException e) {
+                System.out.println("⚠️ Schedule " + ((Number) row[0]).longValue()
+                        + " not reconciled: " + e.getMessage());
+                continue;
+            }
+
+            Instant onAt = recurrence.last(true, since, now, zone);
+            Instant offAt = recurrence.last(false, since, now, zone);
+
+            DesiredState state;
+            if (offAt != null && (onAt == null || !onAt.isAfter(offAt))) {
+                state = new DesiredState(false, offAt);
+            } else if (onAt != null) {
+                state = new DesiredState(true, onAt);
+            } else {
+                continue;
+            }
+
+            desired.merge(((Number) row[1]).longValue(), state,
+                    (current, candidate) -> candidate.at().isAfter(current.at()) ? candidate : current);
+        }
+
+        return desired;
+    }
+
+    private List<DeviceStateTransition> corrections(Map<Long, DesiredState> desired) {
+
+        List<DeviceStateTransition> corrections = new ArrayList<>();
+
+        // Current states come from the device registry (no device query)
+        desired.forEach((deviceId, state) -> {
+            DeviceState device = deviceRegistry.get(deviceId);
+            if (device != null && device.on() != state.on()) {
+                corrections.add(new DeviceStateTransition(deviceId, device.userId(),
+                        state.on(), device.powerRating(),
+                        EnergyMeteringService.SOURCE_SCHEDULE,
+                        LocalDateTime.ofInstant(state.at(), zone)));
+            }
+        });
+
+        corrections.sort(Comparator.comparing(DeviceStateTransition::getChangedAt));
+        return corrections;
+    }
+
+    private record DesiredState(boolean on, Instant at) {
+    }
+}
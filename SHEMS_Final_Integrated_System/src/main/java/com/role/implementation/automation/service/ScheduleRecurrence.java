@@ -0,0 +1,282 @@
+package com.role.implementation.automation.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+import org.springframework.scheduling.support.CronExpression;
+
+import com.role.implementation.automation.model.DeviceSchedule;
+
+/**
+ * Compiled recurrence rules of one schedule.
+ *
+ * The text rules (days of week, date range, excluded dates, cron) are
+ * parsed once, here, into a weekday bitmask, epoch-day bounds, a sorted
+ * exclusion array and parsed CronExpressions. Day checks are then a mask
+ * test and a binary search; nothing is parsed when occurrences are computed.
+ */
+final class ScheduleRecurrence {
+
+    // A rule that matches no day within this many days is treated as finished
+    private static final int MAX_SCAN_DAYS = 5 * 366;
+
+    // Look-back spans (days) for the latest cron occurrence, shortest first
+    private static final int[] CRON_LOOK_BACK_DAYS = { 1, 7, 31, 366 };
+
+    private static final int EVERY_DAY = 0x7F;
+
+    private final LocalTime onTime;
+    private final LocalTime offTime;
+    private final CronExpression onCron;
+    private final CronExpression offCron;
+
+    // Bit 0 = Monday … bit 6 = Sunday
+    private final int dayMask;
+
+    // Inclusive epoch-day bounds
+    private final long firstDay;
+    private final long lastDay;
+
+    private final long[] excludedDays;
+
+    private ScheduleRecurrence(LocalTime onTime, LocalTime offTime,
+                               CronExpression onCron, CronExpression offCron,
+                               int dayMask, long firstDay, long lastDay, long[] excludedDays) {
+        this.onTime = onTime;
+        this.offTime = offTime;
+        this.onCron = onCron;
+        this.offCron = offCron;
+        this.dayMask = dayMask;
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+        this.excludedDays = excludedDays;
+    }
+
+    /**
+     * Compiles the rules of a schedule.
+     *
+     * @throws IllegalArgumentException if a rule cannot be parsed or an
+     *         action has neither a time nor a cron expression
+     */
+    static ScheduleRecurrence compile(DeviceSchedule schedule) {
+        return compile(schedule.getOnTime(), schedule.getOffTime(), schedule.getDaysOfWeek(),
+                schedule.getStartDate(), schedule.getEndDate(), schedule.getExcludedDates(),
+                schedule.getOnCron(), schedule.getOffCron());
+    }
+
+    /**
+     * Compiles a row of DeviceScheduleRepository.findEnabledScheduleRules().
+     */
+    static ScheduleRecurrence compile(Object[] row) {
+        return compile((LocalTime) row[2], (LocalTime) row[3], (String) row[4],
+                (LocalDate) row[5], (LocalDate) row[6], (String) row[7],
+                (String) row[8], (String) row[9]);
+    }
+
+    static ScheduleRecurrence compile(LocalTime onTime, LocalTime offTime, String daysOfWeek,
+                                      LocalDate startDate, LocalDate endDate, String excludedDates,
+                                      String onCron, String offCron) {
+
+        CronExpression onExpression = parseCron(onCron);
+        CronExpression offExpression = parseCron(offCron);
+
+        if (onTime == null && onExpression == null && offTime == null && offExpression == null) {
+            throw new IllegalArgumentException("An ON or OFF time (or cron expression) is required");
+        }
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date is before start date");
+        }
+
+        return new ScheduleRecurrence(onTime, offTime, onExpression, offExpression,
+                parseDays(daysOfWeek),
+                startDate != null ? startDate.toEpochDay() : Long.MIN_VALUE,
+                endDate != null ? endDate.toEpochDay() : Long.MAX_VALUE,
+                parseExcludedDates(excludedDates));
+    }
+
+    // =========================================================
+    // 📅 EVALUATION
+    // =========================================================
+
+    boolean occursOn(long epochDay) {
+        if (epochDay < firstDay || epochDay > lastDay) {
+            return false;
+        }
+        // 1970-01-01 (epoch day 0) was a Thursday
+        int weekday = (int) Math.floorMod(epochDay + 3, 7L);
+        return (dayMask & (1 << weekday)) != 0 && Arrays.binarySearch(excludedDays, epochDay) < 0;
+    }
+
+    /**
+     * First ON (or OFF) instant strictly after {@code after}, or null when
+     * there is none (no rule for that action, or the date range has ended).
+     */
+    Instant next(boolean on, Instant after, ZoneId zone) {
+
+        CronExpression cron = on ? onCron : offCron;
+        if (cron != null) {
+            return nextCron(cron, after, zone);
+        }
+
+        LocalTime time = on ? onTime : offTime;
+        if (time == null) {
+            return null;
+        }
+
+        LocalDate day = after.atZone(zone).toLocalDate();
+        for (int i = 0; i <= MAX_SCAN_DAYS; i++, day = day.plusDays(1)) {
+            long epochDay = day.toEpochDay();
+            if (epochDay > lastDay) {
+                return null;
+            }
+            if (occursOn(epochDay)) {
+                Instant at = day.atTime(time).atZone(zone).toInstant();
+                if (at.isAfter(after)) {
+                    return at;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Latest ON (or OFF) instant in (after, notAfter], or null if none.
+     * Walks back from {@code notAfter}, so the cost does not grow with the
+     * length of the range (used to reconcile after downtime).
+     */
+    Instant last(boolean on, Instant after, Instant notAfter, ZoneId zone) {
+
+        CronExpression cron = on ? onCron : offCron;
+        if (cron != null) {
+            return lastCron(cron, after, notAfter, zone);
+        }
+
+        LocalTime time = on ? onTime : offTime;
+        if (time == null) {
+            return null;
+        }
+
+        LocalDate afterDay = after.atZone(zone).toLocalDate();
+        LocalDate day = notAfter.atZone(zone).toLocalDate();
+        for (int i = 0; i <= MAX_SCAN_DAYS && !day.isBefore(afterDay); i++, day = day.minusDays(1)) {
+            long epochDay = day.toEpochDay();
+            if (epochDay < firstDay) {
+                return null;
+            }
+            if (occursOn(epochDay)) {
+                Instant at = day.atTime(time).atZone(zone).toInstant();
+                if (!at.isAfter(notAfter)) {
+                    return at.isAfter(after) ? at : null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Instant lastCron(CronExpression cron, Instant after, Instant notAfter, ZoneId zone) {
+
+        for (int days : CRON_LOOK_BACK_DAYS) {
+            Instant spanStart = notAfter.minus(Duration.ofDays(days));
+            Instant from = spanStart.isAfter(after) ? spanStart : after;
+
+            Instant latest = null;
+            for (Instant at = nextCron(cron, from, zone);
+                 at != null && !at.isAfter(notAfter);
+                 at = nextCron(cron, at, zone)) {
+                latest = at;
+            }
+
+            if (latest != null || !spanStart.isAfter(after)) {
+                return latest;
+            }
+        }
+        return null;
+    }
+
+    private Instant nextCron(CronExpression cron, Instant after, ZoneId zone) {
+
+        ZonedDateTime time = after.atZone(zone);
+        if (firstDay != Long.MIN_VALUE && time.toLocalDate().toEpochDay() < firstDay) {
+            time = LocalDate.ofEpochDay(firstDay).atStartOfDay(zone).minusNanos(1);
+        }
+
+        for (int i = 0; i <= MAX_SCAN_DAYS; i++) {
+            time = cron.next(time);
+            if (time == null) {
+                return null;
+            }
+
+            long epochDay = time.toLocalDate().toEpochDay();
+            if (epochDay > lastDay) {
+                return null;
+            }
+            if (occursOn(epochDay)) {
+                return time.toInstant();
+            }
+
+            // Skip the rest of a day that does not occur
+            time = time.toLocalDate().plusDays(1).atStartOfDay(zone).minusNanos(1);
+        }
+        return null;
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private static CronExpression parseCron(String expression) {
+        return expression == null || expression.isBlank() ? null : CronExpression.parse(expression.trim());
+    }
+
+    private static int parseDays(String daysOfWeek) {
+
+        if (daysOfWeek == null || daysOfWeek.isBlank()) {
+            return EVERY_DAY;
+        }
+
+        int mask = 0;
+        for (String token : daysOfWeek.split(",")) {
+            String day = token.trim().toUpperCase();
+            if (day.isEmpty()) {
+                continue;
+            }
+            int index = switch (day.length() >= 3 ? day.substring(0, 3) : day) {
+                case "MON" -> 0;
+                case "TUE" -> 1;
+                case "WED" -> 2;
+                case "THU" -> 3;
+                case "FRI" -> 4;
+                case "SAT" -> 5;
+                case "SUN" -> 6;
+                default -> throw new IllegalArgumentException("Unknown day of week: " + token.trim());
+            };
+            mask |= 1 << index;
+        }
+        return mask == 0 ? EVERY_DAY : mask;
+    }
+
+    private static long[] parseExcludedDates(String excludedDates) {
+
+        if (excludedDates == null || excludedDates.isBlank()) {
+            return new long[0];
+        }
+
+        try {
+            return Arrays.stream(excludedDates.split(","))
+                    .map(String::trim)
+                    .filter(date -> !date.isEmpty())
+                    .mapToLong(date -> LocalDate.parse(date).toEpochDay())
+                    .sorted()
+                    .distinct()
+                    .toArray();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Excluded dates must be yyyy-MM-dd, comma separated");
+        }
+    }
+}
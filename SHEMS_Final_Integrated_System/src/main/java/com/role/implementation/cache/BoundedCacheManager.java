@@ -0,0 +1,40 @@
+package com.role.implementation.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Creates one BoundedTtlCache per cache name on first use,
+ * all with the same size and TTL limits.
+ */
+public class BoundedCacheManager implements CacheManager {
+
+    private final int maxEntries;
+    private final long ttlSeconds;
+
+    private final ConcurrentMap<String, BoundedTtlCache> caches = new ConcurrentHashMap<>();
+
+    public BoundedCacheManager(int maxEntries, long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, n -> new BoundedTtlCache(n, maxEntries, ttlSeconds));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    public Collection<BoundedTtlCache> getCaches() {
+        return Collections.unmodifiableCollection(caches.values());
+    }
+}
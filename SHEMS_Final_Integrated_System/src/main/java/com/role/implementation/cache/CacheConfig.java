@@ -0,0 +1,23 @@
+package com.role.implementation.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // ===== Cache names =====
+    public static final String USER_ENERGY = "userEnergy";
+    public static final String USER_ANALYTICS = "userAnalytics";
+    public static final String SYSTEM_ANALYTICS = "systemAnalytics";
+    public static final String ENERGY_SNAPSHOTS = "energySnapshots";
+
+    @Bean
+    public BoundedCacheManager cacheManager(@Value("${shems.cache.max-entries:10000}") int maxEntries,
+                                            @Value("${shems.cache.ttl-seconds:60}") long ttlSeconds) {
+        return new BoundedCacheManager(maxEntries, ttlSeconds);
+    }
+}
@@ -0,0 +1,44 @@
+package com.role.implementation.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+@Controller
+public class CacheStatsController {
+
+    private final BoundedCacheManager cacheManager;
+
+    public CacheStatsController(BoundedCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    // =========================================================
+    // 📊 CACHE HIT / MISS STATISTICS (ADMIN ONLY)
+    // =========================================================
+    @GetMapping("/admin/cache/stats")
+    @ResponseBody
+    public Map<String, Map<String, Object>> getCacheStats() {
+
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+
+        for (BoundedTtlCache cache : cacheManager.getCaches()) {
+            long hits = cache.getHits();
+            long misses = cache.getMisses();
+
+            Map<String, Object> cacheStats = new LinkedHashMap<>();
+            cacheStats.put("size", cache.size());
+            cacheStats.put("hits", hits);
+            cacheStats.put("misses", misses);
+            cacheStats.put("evictions", cache.getEvictions());
+            cacheStats.put("hitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+
+            stats.put(cache.getName(), cacheStats);
+        }
+
+        return stats;
+    }
+}
@@ -0,0 +1,51 @@
+package com.role.implementation.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Versioned cache keys for energy read models (used from @Cacheable SpEL
+ * as {@code @energyCacheKeys}).
+ *
+ * Every key embeds the ingest tick, so all entries go stale together when
+ * EnergyTrackingService finishes a tick. User-scoped keys also embed that
+ * user's version, bumped when one of their devices is toggled, added or
+ * deleted; system-wide keys embed a global change counter. Stale entries
+ * are never read again and age out of the bounded cache.
+ */
+@Component("energyCacheKeys")
+public class EnergyCacheKeys {
+
+    private final AtomicLong tick = new AtomicLong();
+    private final AtomicLong changes = new AtomicLong();
+    private final Map<Integer, AtomicLong> userVersions = new ConcurrentHashMap<>();
+
+    // =========================================================
+    // 🔑 KEYS
+    // =========================================================
+
+    public String user(int userId) {
+        AtomicLong version = userVersions.get(userId);
+        return tick.get() + ":" + (version != null ? version.get() : 0) + ":u" + userId;
+    }
+
+    public String system() {
+        return tick.get() + ":" + changes.get();
+    }
+
+    // =========================================================
+    // 🔁 INVALIDATION
+    // =========================================================
+
+    public void nextTick() {
+        tick.incrementAndGet();
+    }
+
+    public void userChanged(int userId) {
+        userVersions.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+        changes.incrementAndGet();
+    }
+}
@@ -10,8 +10,12 @@ import org.springframework.web.bind.annotation.*;
 import com.role.implementation.model.User;
 import com.role.implementation.repository.UserRepository;
 import com.role.implementation.devicemanagement.model.Device;
+import com.role.implementation.devicemanagement.service.DeviceCommandBus;
 import com.role.implementation.devicemanagement.service.DeviceService;
+import com.role.implementation.devicemanagement.service.DeviceStateUpdater;
 import com.role.implementation.energytracking.service.EnergyService;
+import com.role.implementation.energytracking.service.EnergySnapshot;
+import com.role.implementation.energytracking.service.EnergySnapshotService;
 import com.role.implementation.energytracking.service.PdfReportService;
 import com.role.implementation.service.DefaultUserService;
 
@@ -25,7 +29,10 @@ public class AdminController {
     @Autowired private UserRepository userRepository;
     @Autowired private DeviceService deviceService;
     @Autowired private EnergyService energyService;
+    @Autowired private EnergySnapshotService energySnapshotService;
     @Autowired private PdfReportService pdfReportService;
+    @Autowired private DeviceCommandBus deviceCommandBus;
+    @Autowired private DeviceStateUpdater deviceStateUpdater;
 
     // ✅ SERVICE that handles SAFE DELETE with TRANSACTION
     @Autowired private DefaultUserService defaultUserService;
@@ -55,11 +62,15 @@ public class AdminController {
         Map<Integer, Boolean> userPeakMap = new HashMap<>();
         List<User> highUsageUsers = new ArrayList<>();
 
+        // 📸 Two grouped queries for all users instead of two per user
+        EnergySnapshot allTime = energySnapshotService.getAllTimeUserSnapshot();
+        EnergySnapshot today = energySnapshotService.getTodaySnapshot();
+
         for (User u : users) {
-            double totalEnergy = energyService.getTotalEnergyForUser(u.getId());
+            double totalEnergy = allTime.getUserEnergy(u.getId());
             userEnergyMap.put(u.getId(), totalEnergy);
 
-            double todayEnergy = energyService.getTodayEnergyForUser(u.getId());
+            double todayEnergy = today.getUserEnergy(u.getId());
             boolean isHigh = todayEnergy > 5.0;
 
             userPeakMap.put(u.getId(), isHigh);
@@ -85,30 +96,47 @@ public class AdminController {
         Map<Long, Double> deviceEnergyMap = new HashMap<>();
         Map<Long, String> deviceUsageLevelMap = new HashMap<>();
 
+        // 📸 Every device's energy today from one grouped query
+        EnergySnapshot today = energySnapshotService.getTodaySnapshot();
+
         List<Device> sortedDevices = new ArrayList<>(devices);
         sortedDevices.sort((d1, d2) -> Double.compare(
-                energyService.getTodayEnergyForDevice(d2),
-                energyService.getTodayEnergyForDevice(d1)
+                today.getDeviceEnergy(d2.getId()),
+                today.getDeviceEnergy(d1.getId())
         ));
 
         List<String> deviceNames = new ArrayList<>();
         List<Double> deviceEnergyValues = new ArrayList<>();
 
+        // 🎛️ Choices for the bulk ON/OFF form
+        Map<Integer, String> bulkOwners = new TreeMap<>();
+        Set<String> bulkLocations = new TreeSet<>();
+        Set<String> bulkTypes = new TreeSet<>();
+
         for (Device d : devices) {
-            double energy = energyService.getTodayEnergyForDevice(d);
+            double energy = today.getDeviceEnergy(d.getId());
             deviceEnergyMap.put(d.getId(), energy);
             deviceUsageLevelMap.put(d.getId(), energyService.getUsageLevel(energy));
+
+            bulkOwners.put(d.getUser().getId(), d.getUser().getName());
+            bulkLocations.add(d.getLocation());
+            bulkTypes.add(d.getType());
         }
 
         for (Device d : sortedDevices) {
             deviceNames.add(d.getName());
-            deviceEnergyValues.add(energyService.getTodayEnergyForDevice(d));
+            deviceEnergyValues.add(today.getDeviceEnergy(d.getId()));
         }
 
         model.addAttribute("deviceEnergyMap", deviceEnergyMap);
         model.addAttribute("deviceUsageLevelMap", deviceUsageLevelMap);
         model.addAttribute("deviceNames", deviceNames);
         model.addAttribute("deviceEnergyValues", deviceEnergyValues);
+        model.addAttribute("bulkOwners", bulkOwners);
+        model.addAttribute("bulkLocations", bulkLocations);
+        model.addAttribute("bulkTypes", bulkTypes);
+        model.addAttribute("commandStats", deviceCommandBus.getStats());
+        model.addAttribute("stateStats", deviceStateUpdater.getStats());
 
         return "adminDevices";
     }
@@ -123,9 +151,10 @@ public class AdminController {
 
         Map<Long, Double> deviceEnergyMap = new HashMap<>();
         Map<Long, String> deviceUsageLevelMap = new HashMap<>();
+        EnergySnapshot today = energySnapshotService.getTodaySnapshot();
 
         for (Device d : devices) {
-            double energy = energyService.getTodayEnergyForDevice(d);
+            double energy = today.getDeviceEnergy(d.getId());
             deviceEnergyMap.put(d.getId(), energy);
             deviceUsageLevelMap.put(d.getId(), energyService.getUsageLevel(energy));
         }
@@ -143,9 +172,10 @@ public class AdminController {
 
         Map<Integer, Double> userEnergyMap = new HashMap<>();
         Map<Integer, Double> userCostMap = new HashMap<>();
+        EnergySnapshot today = energySnapshotService.getTodaySnapshot();
 
         for (User user : users) {
-            double energy = energyService.getTodayEnergyForUser(user.getId());
+            double energy = today.getUserEnergy(user.getId());
             userEnergyMap.put(user.getId(), energy);
             userCostMap.put(user.getId(), energyService.calculateCost(energy));
         }
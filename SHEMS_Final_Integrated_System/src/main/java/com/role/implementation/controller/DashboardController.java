@@ -46,8 +46,11 @@ public class DashboardController {
         model.addAttribute("totalDevices", deviceService.countTotalDevices());
         model.addAttribute("activeDevices", deviceService.countActiveDevices());
 
+        // ⚡ ENERGY PER DEVICE (one bulk lookup for the whole list)
+        Map<Long, Double> deviceEnergyMap = deviceService.getTodayEnergyForDevices(userDevices);
+
         // ⚡ TOTAL ENERGY TODAY (ALL DEVICES)
-        double todayEnergy = energyService.getTotalTodayEnergy(userDevices);
+        double todayEnergy = deviceEnergyMap.values().stream().mapToDouble(Double::doubleValue).sum();
         double todayCost = energyService.calculateCost(todayEnergy);
 
         // 🟢 USER-FRIENDLY LEVEL FOR TOTAL USAGE
@@ -59,14 +62,12 @@ public class DashboardController {
         model.addAttribute("usageLevel", usageLevel);
         model.addAttribute("usageColor", usageColor);
 
-        // ⚡ ENERGY PER DEVICE (FOR TABLE DISPLAY)
-        Map<Long, Double> deviceEnergyMap = new HashMap<>();
+        // ⚡ USAGE LEVEL PER DEVICE (FOR TABLE DISPLAY)
         Map<Long, String> deviceUsageLevelMap = new HashMap<>();
 
         for (Device device : userDevices) {
 
-            double energyToday = energyService.getTodayEnergyForDevice(device);
-            deviceEnergyMap.put(device.getId(), energyToday);
+            double energyToday = deviceEnergyMap.getOrDefault(device.getId(), 0.0);
 
             String level = energyService.getUsageLevel(energyToday);
             deviceUsageLevelMap.put(device.getId(), level);
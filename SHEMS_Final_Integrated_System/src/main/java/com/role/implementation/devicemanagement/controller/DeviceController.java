@@ -11,6 +11,8 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
 import com.role.implementation.devicemanagement.model.Device;
 import com.role.implementation.devicemanagement.service.DeviceService;
 
@@ -54,6 +56,9 @@ public class DeviceController {
         }
 
         model.addAttribute("deviceCostMap", deviceCostMap);
+
+        // Scenes
+        model.addAttribute("scenes", deviceService.getScenesForLoggedUser());
     }
 
     // ================= USER DEVICES PAGE =================
@@ -109,6 +114,30 @@ public class DeviceController {
         return "redirect:/devices";
     }
 
+    // ================= SCENES =================
+    @PostMapping("/scenes/save")
+    public String saveScene(@RequestParam String name, RedirectAttributes redirect) {
+        if (name.isBlank() || name.length() > 50) {
+            redirect.addFlashAttribute("sceneError", "Scene name must be 1-50 characters");
+            return "redirect:/devices";
+        }
+        deviceService.saveCurrentStatesAsScene(name.trim());
+        return "redirect:/devices";
+    }
+
+    @GetMapping("/scenes/apply/{id}")
+    public String applyScene(@PathVariable Long id, RedirectAttributes redirect) {
+        int changed = deviceService.applyScene(id);
+        redirect.addFlashAttribute("sceneMessage", "Scene applied: " + changed + " device(s) switched");
+        return "redirect:/devices";
+    }
+
+    @GetMapping("/scenes/delete/{id}")
+    public String deleteScene(@PathVariable Long id) {
+        deviceService.deleteScene(id);
+        return "redirect:/devices";
+    }
+
     // ================= ADMIN CONTROLS =================
     @GetMapping("/admin/toggle/{id}")
     public String adminToggle(@PathVariable Long id) {
@@ -121,4 +150,16 @@ public class DeviceController {
         deviceService.deleteDevice(id);
         return "redirect:/adminScreen/devices";
     }
+
+    // Switches a whole group (one user / location / type) in one command
+    @PostMapping("/admin/bulk")
+    public String adminBulk(@RequestParam String group,
+                            @RequestParam String value,
+                            @RequestParam boolean status,
+                            RedirectAttributes redirect) {
+        int changed = deviceService.setStatusForGroup(group, value, status);
+        redirect.addFlashAttribute("bulkMessage",
+                changed + " device(s) switched " + (status ? "ON" : "OFF"));
+        return "redirect:/adminScreen/devices";
+    }
 }
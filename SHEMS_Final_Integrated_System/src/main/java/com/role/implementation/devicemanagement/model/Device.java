@@ -41,6 +41,19 @@ public class Device {
     @Column(nullable = false)
     private boolean status = false; // Default OFF
 
+    // ================= SHEDDING PRIORITY =================
+    // Higher = more important; load caps switch off the lowest first
+    @Min(value = 0, message = "Priority cannot be negative")
+    @Max(value = 10, message = "Priority cannot exceed 10")
+    @Column(nullable = false)
+    private int priority = 0;
+
+    // ================= VERSION =================
+    // Bumped by every status write (JPA and JDBC); toggles compare-and-set on it
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     // ================= OWNER =================
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
@@ -68,6 +81,11 @@ public class Device {
     public double getPowerRating() { return powerRating; }
     public void setPowerRating(double powerRating) { this.powerRating = powerRating; }
 
+    public int getPriority() { return priority; }
+    public void setPriority(int priority) { this.priority = priority; }
+
+    public long getVersion() { return version; }
+
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
 
@@ -0,0 +1,58 @@
+package com.role.implementation.devicemanagement.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.persistence.*;
+import javax.validation.constraints.*;
+
+import com.role.implementation.model.User;
+
+/**
+ * A named set of target device states ("Good night" = lights OFF, heater ON).
+ * Applying a scene changes only its owner's devices, with set-based writes.
+ */
+@Entity
+@Table(name = "scenes")
+public class Scene {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // ================= SCENE NAME =================
+    @NotBlank(message = "Scene name is required")
+    @Size(max = 50, message = "Scene name cannot exceed 50 characters")
+    @Column(nullable = false, length = 50)
+    private String name;
+
+    // ================= OWNER =================
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    // ================= TARGET STATES =================
+    // device id → ON (true) / OFF (false); plain ids, deleted devices are skipped
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "scene_targets", joinColumns = @JoinColumn(name = "scene_id"))
+    @MapKeyColumn(name = "device_id")
+    @Column(name = "target_on", nullable = false)
+    private Map<Long, Boolean> targets = new HashMap<>();
+
+    // ================= GETTERS & SETTERS =================
+
+    public Long getId() { return id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+
+    public Map<Long, Boolean> getTargets() { return targets; }
+    public void setTargets(Map<Long, Boolean> targets) { this.targets = targets; }
+
+    public long getOnCount() {
+        return targets.values().stream().filter(Boolean::booleanValue).count();
+    }
+}
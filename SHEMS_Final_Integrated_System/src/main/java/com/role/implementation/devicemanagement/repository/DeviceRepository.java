@@ -3,6 +3,7 @@ package com.role.implementation.devicemanagement.repository;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.role.implementation.devicemanagement.model.Device;
@@ -25,4 +26,12 @@ public interface DeviceRepository extends JpaRepository<Device, Long> {
 
     // 🔹 Count active/inactive devices for a specific user
     long countByUserAndStatus(User user, boolean status);
+
+    // 🔹 Id + owner id + status + power rating + priority + location of every device (registry load)
+    @Query("SELECT d.id, d.user.id, d.status, d.powerRating, d.priority, d.location FROM Device d")
+    List<Object[]> findAllDeviceStates();
+
+    // 🔹 Id + owner id of every device (bulk energy lookups, no entity loading)
+    @Query("SELECT d.id, d.user.id FROM Device d")
+    List<Object[]> findAllDeviceOwnerIds();
 }
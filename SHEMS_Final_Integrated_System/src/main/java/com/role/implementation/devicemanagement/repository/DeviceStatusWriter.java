@@ -0,0 +1,185 @@
+package com.role.implementation.devicemanagement.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Lock-free ON/OFF writes (reconciliation, scenes, bulk admin commands,
+ * schedules, policy enforcement, toggles).
+ *
+ * Every write bumps the device's version column, so JPA saves of a stale
+ * entity fail instead of overwriting. Two compare-and-set forms are used:
+ *
+ * - switching to a given state: UPDATE ... WHERE id = ? AND status <> ?,
+ *   sent as one JDBC batch. A row count of 1 means this call made the
+ *   change, so exactly one transition is written per real change;
+ * - toggling: UPDATE ... WHERE id = ? AND version = ?, against the version
+ *   just read (see DeviceStateUpdater for the retry loop).
+ *
+ * The find* reads take no locks. Runs in the caller's transaction.
+ */
+@Repository
+public class DeviceStatusWriter {
+
+    public static final String COLUMN_USER = "user_id";
+    public static final String COLUMN_LOCATION = "location";
+    public static final String COLUMN_TYPE = "type";
+
+    // Column names are spliced into SQL, so only these are accepted
+    private static final Set<String> GROUP_COLUMNS = Set.of(COLUMN_USER, COLUMN_LOCATION, COLUMN_TYPE);
+
+    private static final String SWITCH_SQL =
+            "UPDATE devices SET status = ?, version = version + 1 WHERE id = ? AND status <> ?";
+
+    private static final String COMPARE_AND_SET_SQL =
+            "UPDATE devices SET status = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+    private static final String FIND_CHANGES_SQL = """
+        SELECT id, power_rating, user_id
+        FROM devices
+        WHERE status <> ? AND id IN (%s)%s
+    """;
+
+    private static final String FIND_GROUP_CHANGES_SQL = """
+        SELECT id, power_rating, user_id
+        FROM devices
+        WHERE %s = ? AND status <> ?
+    """;
+
+    private static final String READ_STATE_SQL =
+            "SELECT status, version, power_rating, user_id FROM devices WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+
+    public DeviceStatusWriter(JdbcTemplate jdbcTemplate,
+                              @Value("${shems.energy.ingest.batch-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    // =========================================================
+    // 🔁 SWITCH TO A STATE
+    // =========================================================
+
+    /**
+     * Devices among {@code deviceIds} whose status is not {@code status}.
+     * With {@code ownerId}, only that user's devices are returned.
+     */
+    public List<StatusChange> findChanges(List<Long> deviceIds, boolean status, Integer ownerId) {
+
+        List<StatusChange> changes = new ArrayList<>();
+
+        for (int from = 0; from < deviceIds.size(); from += chunkSize) {
+            List<Long> chunk = deviceIds.subList(from, Math.min(from + chunkSize, deviceIds.size()));
+
+            List<Object> args = new ArrayList<>(chunk.size() + 2);
+            args.add(status);
+            args.addAll(chunk);
+            if (ownerId != null) {
+                args.add(ownerId);
+            }
+
+            jdbcTemplate.query(FIND_CHANGES_SQL.formatted(placeholders(chunk.size()),
+                            ownerId != null ? " AND user_id = ?" : ""),
+                    rs -> {
+                        changes.add(new StatusChange(rs.getLong(1), rs.getDouble(2), rs.getInt(3)));
+                    },
+                    args.toArray());
+        }
+
+        return changes;
+    }
+
+    /**
+     * Devices of one owner, location or type whose status is not {@code status}.
+     */
+    public List<StatusChange> findGroupChanges(String column, Object value, boolean status) {
+        return jdbcTemplate.query(FIND_GROUP_CHANGES_SQL.formatted(groupColumn(column)),
+                (rs, rowNum) -> new StatusChange(rs.getLong(1), rs.getDouble(2), rs.getInt(3)),
+                value, status);
+    }
+
+    /**
+     * Switches the candidates to {@code status}, one batch per chunk.
+     * Returns the candidates this call actually changed; the others were
+     * already switched by a concurrent writer.
+     */
+    public List<StatusChange> switchDevices(List<StatusChange> candidates, boolean status) {
+
+        List<StatusChange> changed = new ArrayList<>(candidates.size());
+
+        for (int from = 0; from < candidates.size(); from += chunkSize) {
+            List<StatusChange> chunk = candidates.subList(from, Math.min(from + chunkSize, candidates.size()));
+
+            List<Object[]> args = new ArrayList<>(chunk.size());
+            for (StatusChange candidate : chunk) {
+                args.add(new Object[] { status, candidate.deviceId(), status });
+            }
+
+            int[] counts = jdbcTemplate.batchUpdate(SWITCH_SQL, args);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    changed.add(chunk.get(i));
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    // =========================================================
+    // 🔀 COMPARE-AND-SET (TOGGLES)
+    // =========================================================
+
+    /**
+     * Current status and version of one device; null if it does not exist.
+     */
+    public VersionedState readState(long deviceId) {
+        List<VersionedState> rows = jdbcTemplate.query(READ_STATE_SQL,
+                (rs, rowNum) -> new VersionedState(deviceId, rs.getBoolean(1), rs.getLong(2),
+                        rs.getDouble(3), rs.getInt(4)),
+                deviceId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Sets the status only if the device is still at {@code expectedVersion}.
+     */
+    public boolean compareAndSetStatus(long deviceId, boolean status, long expectedVersion) {
+        return jdbcTemplate.update(COMPARE_AND_SET_SQL, status, deviceId, expectedVersion) > 0;
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private static String groupColumn(String column) {
+        if (!GROUP_COLUMNS.contains(column)) {
+            throw new IllegalArgumentException("Unsupported device group: " + column);
+        }
+        return column;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * A device whose status a command is about to change.
+     */
+    public record StatusChange(long deviceId, double powerRating, int userId) {
+    }
+
+    /**
+     * A device's status as read for a compare-and-set.
+     */
+    public record VersionedState(long deviceId, boolean status, long version, double powerRating, int userId) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.role.implementation.devicemanagement.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.role.implementation.devicemanagement.model.Scene;
+import com.role.implementation.model.User;
+
+@Repository
+public interface SceneRepository extends JpaRepository<Scene, Long> {
+
+    // 🔹 Scenes of a user, by name
+    List<Scene> findByUserOrderByNameAsc(User user);
+
+    // 🔹 REQUIRED for safe user delete
+    void deleteByUser(User user);
+}
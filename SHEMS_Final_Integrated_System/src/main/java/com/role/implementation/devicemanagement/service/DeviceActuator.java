@@ -0,0 +1,15 @@
+package com.role.implementation.devicemanagement.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Adapter that drives the physical (or simulated) device.
+ *
+ * The returned future completes when the device acknowledges the command
+ * and completes exceptionally when it rejects it. A future that never
+ * completes is cut off by the command bus's timeout.
+ */
+public interface DeviceActuator {
+
+    CompletableFuture<Void> actuate(long deviceId, boolean on);
+}
@@ -0,0 +1,9 @@
+package com.role.implementation.devicemanagement.service;
+
+import java.time.Instant;
+
+/**
+ * One ON/OFF command for a device, as queued in its mailbox.
+ */
+public record DeviceCommand(long deviceId, boolean on, String source, Instant submittedAt) {
+}
@@ -0,0 +1,245 @@
+package com.role.implementation.devicemanagement.service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.role.implementation.energytracking.service.DeviceStatusChangedEvent;
+
+/**
+ * Delivers ON/OFF commands to devices through the {@link DeviceActuator}.
+ *
+ * Every device has its own mailbox: a bounded FIFO queue of which only the
+ * head is ever in flight, so commands reach a device in submission order.
+ * Mailboxes are drained on a shared fork-join pool without blocking a
+ * thread while waiting for an ack, so throughput scales with cores and
+ * a slow device only delays its own commands.
+ *
+ * An attempt that is not acknowledged within the timeout, or is rejected,
+ * is retried with linear backoff up to the attempt limit, unless a newer
+ * command for the same device is already waiting (it supersedes the old one).
+ *
+ * Toggles, scenes, schedules, reconciliation and policy enforcement all
+ * record their change with the energy meter; the resulting status events
+ * are submitted here once the surrounding transaction has committed.
+ */
+@Service
+public class DeviceCommandBus {
+
+    private final DeviceActuator actuator;
+    private final ForkJoinPool pool;
+    private final int mailboxCapacity;
+    private final long timeoutMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+
+    // 📬 deviceId → mailbox (removed again once drained)
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder acknowledged = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public DeviceCommandBus(DeviceActuator actuator,
+                            @Value("${shems.actuator.parallelism:0}") int parallelism,
+                            @Value("${shems.actuator.mailbox-capacity:64}") int mailboxCapacity,
+                            @Value("${shems.actuator.timeout-ms:2000}") long timeoutMillis,
+                            @Value("${shems.actuator.max-attempts:3}") int maxAttempts,
+                            @Value("${shems.actuator.retry-backoff-ms:200}") long retryBackoffMillis) {
+        this.actuator = actuator;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        this.mailboxCapacity = Math.max(1, mailboxCapacity);
+        this.timeoutMillis = Math.max(1, timeoutMillis);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = Math.max(0, retryBackoffMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // =========================================================
+    // 📤 SUBMIT
+    // =========================================================
+
+    /**
+     * Queues a command behind the device's earlier ones. The returned future
+     * completes on ack, or exceptionally when the mailbox is full or all
+     * attempts failed.
+     */
+    public CompletableFuture<Void> submit(long deviceId, boolean on, String source) {
+
+        PendingCommand pending = new PendingCommand(new DeviceCommand(deviceId, on, source, Instant.now()));
+
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(deviceId, Mailbox::new);
+
+            synchronized (mailbox) {
+                // Drained and removed concurrently → take a fresh one
+                if (mailbox.closed) {
+                    continue;
+                }
+
+                if (mailbox.queue.size() >= mailboxCapacity) {
+                    rejected.increment();
+                    System.out.println("⚠️ Command mailbox full for device " + deviceId + ", dropped " + source + " command");
+                    pending.ack.completeExceptionally(new RejectedExecutionException(
+                            "Command mailbox full for device " + deviceId));
+                    return pending.ack;
+                }
+
+                submitted.increment();
+                mailbox.queue.add(pending);
+
+                if (!mailbox.running) {
+                    mailbox.running = true;
+                    pool.execute(() -> dispatchNext(mailbox));
+                }
+            }
+            return pending.ack;
+        }
+    }
+
+    // Every recorded ON/OFF change is sent to the device after commit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceStatusChanged(DeviceStatusChangedEvent event) {
+        submit(event.deviceId(), event.on(), event.source());
+    }
+
+    public CommandBusStats getStats() {
+        long done = acknowledged.sum() + failed.sum() + superseded.sum();
+        return new CommandBusStats(submitted.sum(), acknowledged.sum(), retried.sum(), timedOut.sum(),
+                superseded.sum(), failed.sum(), rejected.sum(), submitted.sum() - done);
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private void dispatchNext(Mailbox mailbox) {
+
+        PendingCommand pending;
+        synchronized (mailbox) {
+            pending = mailbox.queue.peek();
+            if (pending == null) {
+                mailbox.running = false;
+                mailbox.closed = true;
+                mailboxes.remove(mailbox.deviceId, mailbox);
+                return;
+            }
+        }
+
+        attempt(mailbox, pending, 1);
+    }
+
+    private void attempt(Mailbox mailbox, PendingCommand pending, int attempt) {
+
+        DeviceCommand command = pending.command;
+        CompletableFuture<Void> ack;
+        try {
+            ack = actuator.actuate(command.deviceId(), command.on());
+        } catch (RuntimeException e) {
+            ack = CompletableFuture.failedFuture(e);
+        }
+
+        ack.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((ignored, error) -> {
+
+            if (error == null) {
+                acknowledged.increment();
+                finish(mailbox, pending, null);
+                return;
+            }
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof TimeoutException) {
+                timedOut.increment();
+            }
+
+            if (isSuperseded(mailbox)) {
+                superseded.increment();
+                finish(mailbox, pending, cause);
+            } else if (attempt < maxAttempts) {
+                retried.increment();
+                CompletableFuture.delayedExecutor(retryBackoffMillis * attempt, TimeUnit.MILLISECONDS, pool)
+                        .execute(() -> attempt(mailbox, pending, attempt + 1));
+            } else {
+                failed.increment();
+                System.out.println("❌ Device " + command.deviceId() + " did not ack " + command.source()
+                        + (command.on() ? " ON" : " OFF") + " after " + attempt + " attempt(s): " + cause.getMessage());
+                finish(mailbox, pending, cause);
+            }
+        });
+    }
+
+    private boolean isSuperseded(Mailbox mailbox) {
+        synchronized (mailbox) {
+            return mailbox.queue.size() > 1;
+        }
+    }
+
+    private void finish(Mailbox mailbox, PendingCommand pending, Throwable error) {
+
+        synchronized (mailbox) {
+            mailbox.queue.poll();
+        }
+
+        if (error == null) {
+            pending.ack.complete(null);
+        } else {
+            pending.ack.completeExceptionally(error);
+        }
+
+        pool.execute(() -> dispatchNext(mailbox));
+    }
+
+    /**
+     * Commands of one device; guarded by its own monitor.
+     */
+    private static final class Mailbox {
+
+        private final long deviceId;
+        private final Queue<PendingCommand> queue = new ArrayDeque<>();
+        private boolean running;
+        private boolean closed;
+
+        private Mailbox(long deviceId) {
+            this.deviceId = deviceId;
+        }
+    }
+
+    private static final class PendingCommand {
+
+        private final DeviceCommand command;
+        private final CompletableFuture<Void> ack = new CompletableFuture<>();
+
+        private PendingCommand(DeviceCommand command) {
+            this.command = command;
+        }
+    }
+
+    public record CommandBusStats(long submitted, long acknowledged, long retried, long timedOut,
+                                  long superseded, long failed, long rejected, long pending) {
+    }
+}
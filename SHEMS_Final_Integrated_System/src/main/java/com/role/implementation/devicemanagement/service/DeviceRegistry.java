@@ -0,0 +1,189 @@
+package com.role.implementation.devicemanagement.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.role.implementation.devicemanagement.model.Device;
+import com.role.implementation.devicemanagement.repository.DeviceRepository;
+import com.role.implementation.energytracking.service.DeviceStatusChangedEvent;
+
+/**
+ * In-memory copy of the fields background jobs need from every device:
+ * owner, status, power rating, priority and location.
+ *
+ * Loaded once at startup with one projection query, then kept current
+ * write-through: adds and deletes are applied by the services that perform
+ * them, and every ON/OFF change arrives as the meter's status event (all
+ * status writers record their change there). Schedulers, the policy engine
+ * and the reconciler read from here instead of scanning the device table.
+ *
+ * Every change is applied only once its transaction has committed, so a
+ * rolled-back scene, bulk command or reconciliation never shows up here.
+ *
+ * Entries are immutable and replaced whole, so readers never see a
+ * half-updated device.
+ */
+@Component
+public class DeviceRegistry {
+
+    private final DeviceRepository deviceRepository;
+
+    // 🔑 deviceId → state
+    private final Map<Long, DeviceState> devices = new ConcurrentHashMap<>();
+
+    // 🏠 userId → ids of the household's devices
+    private final Map<Integer, Set<Long>> devicesByUser = new ConcurrentHashMap<>();
+
+    public DeviceRegistry(DeviceRepository deviceRepository) {
+        this.deviceRepository = deviceRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+
+        for (Object[] row : deviceRepository.findAllDeviceStates()) {
+            if (row[1] == null) {
+                continue;
+            }
+            register(new DeviceState(((Number) row[0]).longValue(), ((Number) row[1]).intValue(),
+                    (Boolean) row[2], ((Number) row[3]).doubleValue(),
+                    ((Number) row[4]).intValue(), (String) row[5]));
+        }
+
+        System.out.println("📇 Device registry loaded: " + devices.size() + " devices");
+    }
+
+    // =========================================================
+    // ✏️ WRITE-THROUGH
+    // =========================================================
+
+    // Call after the device has been saved
+    public void put(Device device) {
+        DeviceState state = new DeviceState(device.getId(), device.getUser().getId(), device.isStatus(),
+                device.getPowerRating(), device.getPriority(), device.getLocation());
+        afterCommit(() -> register(state));
+    }
+
+    public void remove(long deviceId) {
+        afterCommit(() -> {
+            DeviceState state = devices.remove(deviceId);
+            if (state != null) {
+                Set<Long> household = devicesByUser.get(state.userId());
+                if (household != null) {
+                    household.remove(deviceId);
+                }
+            }
+        });
+    }
+
+    public void removeUser(int userId) {
+        afterCommit(() -> {
+            Set<Long> household = devicesByUser.remove(userId);
+            if (household != null) {
+                household.forEach(devices::remove);
+            }
+        });
+    }
+
+    // After commit, and before the other listeners, so they already see the new status
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDeviceStatusChanged(DeviceStatusChangedEvent event) {
+        devices.computeIfPresent(event.deviceId(),
+                (id, state) -> state.withStatus(event.on(), event.powerRating()));
+    }
+
+    // =========================================================
+    // 📖 READS
+    // =========================================================
+
+    public DeviceState get(long deviceId) {
+        return devices.get(deviceId);
+    }
+
+    public List<DeviceState> getActiveDevices() {
+        List<DeviceState> active = new ArrayList<>();
+        for (DeviceState state : devices.values()) {
+            if (state.on()) {
+                active.add(state);
+            }
+        }
+        return active;
+    }
+
+    public List<DeviceState> getActiveDevices(Collection<Integer> userIds) {
+        List<DeviceState> active = new ArrayList<>();
+        for (int userId : userIds) {
+            addActive(userId, active);
+        }
+        return active;
+    }
+
+    public List<DeviceState> getActiveDevices(int userId) {
+        List<DeviceState> active = new ArrayList<>();
+        addActive(userId, active);
+        return active;
+    }
+
+    public int size() {
+        return devices.size();
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    // At once when there is no transaction
+    private static void afterCommit(Runnable action) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void register(DeviceState state) {
+        devices.put(state.id(), state);
+        devicesByUser.computeIfAbsent(state.userId(), id -> ConcurrentHashMap.newKeySet()).add(state.id());
+    }
+
+    private void addActive(int userId, List<DeviceState> active) {
+        Set<Long> household = devicesByUser.get(userId);
+        if (household == null) {
+            return;
+        }
+        for (long deviceId : household) {
+            DeviceState state = devices.get(deviceId);
+            if (state != null && state.on()) {
+                active.add(state);
+            }
+        }
+    }
+
+    public record DeviceState(long id, int userId, boolean on, double powerRating, int priority, String location) {
+
+        DeviceState withStatus(boolean status, double rating) {
+            return new DeviceState(id, userId, status, rating, priority, location);
+        }
+    }
+}
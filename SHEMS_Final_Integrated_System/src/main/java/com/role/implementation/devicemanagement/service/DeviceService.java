@@ -4,9 +4,15 @@ import java.util.List;
 import java.util.Map;
 
 import com.role.implementation.devicemanagement.model.Device;
+import com.role.implementation.devicemanagement.model.Scene;
 
 public interface DeviceService {
 
+    // Groups an admin can switch in one command
+    String GROUP_USER = "USER";
+    String GROUP_LOCATION = "LOCATION";
+    String GROUP_TYPE = "TYPE";
+
     // ================= DEVICE MANAGEMENT =================
     void addDevice(Device device);
 
@@ -18,6 +24,30 @@ public interface DeviceService {
 
     void deleteDevice(Long id);
 
+    // ================= SCENES & BULK COMMANDS =================
+
+    /**
+     * Saves the current ON/OFF state of the logged-in user's devices as a scene.
+     */
+    Scene saveCurrentStatesAsScene(String name);
+
+    List<Scene> getScenesForLoggedUser();
+
+    void deleteScene(Long id);
+
+    /**
+     * Applies a scene with one set-based UPDATE per target state and one
+     * batch of transitions. Returns the number of devices changed.
+     */
+    int applyScene(Long id);
+
+    /**
+     * Admin: switches every device of one user, location or type ON or OFF
+     * with a single UPDATE and one batch of transitions.
+     * Returns the number of devices changed.
+     */
+    int setStatusForGroup(String group, String value, boolean status);
+
     // ================= DASHBOARD COUNTS =================
     long countTotalDevices();
 
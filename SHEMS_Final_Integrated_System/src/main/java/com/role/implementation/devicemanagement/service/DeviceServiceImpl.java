@@ -1,7 +1,6 @@
 package com.role.implementation.devicemanagement.service;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,9 +9,21 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.role.implementation.cache.EnergyCacheKeys;
 import com.role.implementation.devicemanagement.model.Device;
+import com.role.implementation.devicemanagement.model.Scene;
 import com.role.implementation.devicemanagement.repository.DeviceRepository;
+import com.role.implementation.devicemanagement.repository.DeviceStatusWriter;
+import com.role.implementation.devicemanagement.repository.DeviceStatusWriter.StatusChange;
+import com.role.implementation.devicemanagement.repository.DeviceStatusWriter.VersionedState;
+import com.role.implementation.devicemanagement.repository.SceneRepository;
+import com.role.implementation.energytracking.repository.EnergyRollupWriter;
 import com.role.implementation.energytracking.repository.EnergyUsageRepository;
+import com.role.implementation.energytracking.service.ClosedPeriodEnergyCache;
+import com.role.implementation.energytracking.service.EnergyMeteringService;
+import com.role.implementation.energytracking.service.EnergyService;
+import com.role.implementation.energytracking.service.EnergySnapshot;
+import com.role.implementation.energytracking.service.EnergySnapshotService;
 import com.role.implementation.automation.repository.DeviceScheduleRepository;
 import com.role.implementation.model.Role;
 import com.role.implementation.model.User;
@@ -21,19 +32,52 @@ import com.role.implementation.repository.UserRepository;
 @Service
 public class DeviceServiceImpl implements DeviceService {
 
+    // Above this many devices one grouped snapshot query beats per-device lookups
+    private static final int SNAPSHOT_THRESHOLD = 50;
+
     private final DeviceRepository deviceRepo;
     private final UserRepository userRepo;
     private final EnergyUsageRepository energyUsageRepo;
     private final DeviceScheduleRepository deviceScheduleRepository;
+    private final EnergyMeteringService energyMeteringService;
+    private final EnergyRollupWriter energyRollupWriter;
+    private final EnergyService energyService;
+    private final EnergySnapshotService energySnapshotService;
+    private final EnergyCacheKeys energyCacheKeys;
+    private final ClosedPeriodEnergyCache closedPeriodCache;
+    private final SceneRepository sceneRepo;
+    private final DeviceStatusWriter deviceStatusWriter;
+    private final DeviceRegistry deviceRegistry;
+    private final DeviceStateUpdater deviceStateUpdater;
 
     public DeviceServiceImpl(DeviceRepository deviceRepo,
                              UserRepository userRepo,
                              EnergyUsageRepository energyUsageRepo,
-                             DeviceScheduleRepository deviceScheduleRepository) {
+                             DeviceScheduleRepository deviceScheduleRepository,
+                             EnergyMeteringService energyMeteringService,
+                             EnergyRollupWriter energyRollupWriter,
+                             EnergyService energyService,
+                             EnergySnapshotService energySnapshotService,
+                             EnergyCacheKeys energyCacheKeys,
+                             ClosedPeriodEnergyCache closedPeriodCache,
+                             SceneRepository sceneRepo,
+                             DeviceStatusWriter deviceStatusWriter,
+                             DeviceRegistry deviceRegistry,
+                             DeviceStateUpdater deviceStateUpdater) {
         this.deviceRepo = deviceRepo;
         this.userRepo = userRepo;
         this.energyUsageRepo = energyUsageRepo;
         this.deviceScheduleRepository = deviceScheduleRepository;
+        this.energyMeteringService = energyMeteringService;
+        this.energyRollupWriter = energyRollupWriter;
+        this.energyService = energyService;
+        this.energySnapshotService = energySnapshotService;
+        this.energyCacheKeys = energyCacheKeys;
+        this.closedPeriodCache = closedPeriodCache;
+        this.sceneRepo = sceneRepo;
+        this.deviceStatusWriter = deviceStatusWriter;
+        this.deviceRegistry = deviceRegistry;
+        this.deviceStateUpdater = deviceStateUpdater;
     }
 
     private User getLoggedInUser() {
@@ -52,7 +96,8 @@ public class DeviceServiceImpl implements DeviceService {
     public void addDevice(Device device) {
         device.setUser(getLoggedInUser());
         device.setStatus(false);
-        deviceRepo.save(device);
+        deviceRegistry.put(deviceRepo.save(device));
+        energyCacheKeys.userChanged(device.getUser().getId());
     }
 
     @Override
@@ -68,13 +113,12 @@ public class DeviceServiceImpl implements DeviceService {
 
     @Override
     public void toggleDevice(Long id) {
-        Device d = deviceRepo.findById(id).orElse(null);
         User user = getLoggedInUser();
 
-        if (d != null && (isAdmin(user) || d.getUser().getId() == user.getId())) {
-            d.setStatus(!d.isStatus());
-            deviceRepo.save(d);
-        }
+        // 🔀 Compare-and-set on the version (retried on conflict) + transition
+        boolean admin = isAdmin(user);
+        deviceStateUpdater.toggle(id, admin ? null : user.getId(),
+                admin ? EnergyMeteringService.SOURCE_ADMIN : EnergyMeteringService.SOURCE_USER);
     }
 
     // ✅ SAFE DELETE WITH FULL PROTECTION
@@ -82,24 +126,109 @@ public class DeviceServiceImpl implements DeviceService {
     @Transactional
     public void deleteDevice(Long id) {
 
-        Device d = deviceRepo.findById(id).orElse(null);
         User user = getLoggedInUser();
+        boolean admin = isAdmin(user);
 
-        if (d != null && (isAdmin(user) || d.getUser().getId() == user.getId())) {
+        // Ownership is checked without loading the entity, whose version the switch-off bumps
+        VersionedState state = deviceStatusWriter.readState(id);
+        if (state == null || (!admin && state.userId() != user.getId())) {
+            return;
+        }
 
-            // 🛑 Step 1: Turn OFF device so scheduler stops tracking it
-            d.setStatus(false);
-            deviceRepo.save(d);
+        // 🛑 Step 1: Turn OFF through the updater (OFF transition + status event after commit)
+        deviceStateUpdater.switchDevices(List.of(new StatusChange(id, state.powerRating(), state.userId())),
+                false, admin ? EnergyMeteringService.SOURCE_ADMIN : EnergyMeteringService.SOURCE_USER);
+
+        Device d = deviceRepo.findById(id).orElse(null);
+
+        if (d != null) {
 
             // 🧹 Step 2: Delete dependent child records FIRST
+            energyMeteringService.discardDevice(d.getId());
+            energyRollupWriter.removeDevice(d.getId(), d.getUser().getId());
             energyUsageRepo.deleteByDevice(d);
             deviceScheduleRepository.deleteByDevice(d);
 
             // ❌ Step 3: Now delete the device itself
             deviceRepo.delete(d);
+            deviceRegistry.remove(d.getId());
+            closedPeriodCache.evictDevice(d.getId(), d.getUser().getId());
+            energyCacheKeys.userChanged(d.getUser().getId());
+        }
+    }
+
+    // =========================================================
+    // 🎬 SCENES & BULK COMMANDS
+    // =========================================================
+
+    @Override
+    public Scene saveCurrentStatesAsScene(String name) {
+        User user = getLoggedInUser();
+
+        Scene scene = new Scene();
+        scene.setName(name);
+        scene.setUser(user);
+        for (Device device : deviceRepo.findByUser(user)) {
+            scene.getTargets().put(device.getId(), device.isStatus());
+        }
+        return sceneRepo.save(scene);
+    }
+
+    @Override
+    public List<Scene> getScenesForLoggedUser() {
+        return sceneRepo.findByUserOrderByNameAsc(getLoggedInUser());
+    }
+
+    @Override
+    public void deleteScene(Long id) {
+        Scene scene = sceneRepo.findById(id).orElse(null);
+        User user = getLoggedInUser();
+
+        if (scene != null && (isAdmin(user) || scene.getUser().getId() == user.getId())) {
+            sceneRepo.delete(scene);
         }
     }
 
+    @Override
+    @Transactional
+    public int applyScene(Long id) {
+        Scene scene = sceneRepo.findById(id).orElse(null);
+        User user = getLoggedInUser();
+
+        if (scene == null || (!isAdmin(user) && scene.getUser().getId() != user.getId())) {
+            return 0;
+        }
+
+        List<Long> turnOn = new ArrayList<>();
+        List<Long> turnOff = new ArrayList<>();
+        scene.getTargets().forEach((deviceId, on) -> (on ? turnOn : turnOff).add(deviceId));
+
+        // A scene only ever switches its owner's devices
+        int ownerId = scene.getUser().getId();
+        return deviceStateUpdater.switchDevices(deviceStatusWriter.findChanges(turnOn, true, ownerId),
+                        true, EnergyMeteringService.SOURCE_SCENE).size()
+             + deviceStateUpdater.switchDevices(deviceStatusWriter.findChanges(turnOff, false, ownerId),
+                        false, EnergyMeteringService.SOURCE_SCENE).size();
+    }
+
+    @Override
+    @Transactional
+    public int setStatusForGroup(String group, String value, boolean status) {
+
+        String column;
+        Object key;
+        switch (group) {
+            case GROUP_USER -> { column = DeviceStatusWriter.COLUMN_USER; key = Integer.valueOf(value); }
+            case GROUP_LOCATION -> { column = DeviceStatusWriter.COLUMN_LOCATION; key = value; }
+            case GROUP_TYPE -> { column = DeviceStatusWriter.COLUMN_TYPE; key = value; }
+            default -> throw new IllegalArgumentException("Unknown device group: " + group);
+        }
+
+        // Devices switched concurrently in between are skipped by the conditional UPDATE
+        List<StatusChange> changes = deviceStatusWriter.findGroupChanges(column, key, status);
+        return deviceStateUpdater.switchDevices(changes, status, EnergyMeteringService.SOURCE_ADMIN).size();
+    }
+
     @Override
     public long countTotalDevices() {
         User user = getLoggedInUser();
@@ -117,12 +246,19 @@ public class DeviceServiceImpl implements DeviceService {
     @Override
     public Map<Long, Double> getTodayEnergyForDevices(List<Device> devices) {
         Map<Long, Double> energyMap = new HashMap<>();
-        LocalDateTime start = LocalDate.now().atStartOfDay();
-        LocalDateTime end = LocalDateTime.now();
 
+        // 📸 Admin-sized lists: every device's energy from one grouped query
+        if (devices.size() > SNAPSHOT_THRESHOLD) {
+            EnergySnapshot today = energySnapshotService.getTodaySnapshot();
+            for (Device device : devices) {
+                energyMap.put(device.getId(), today.getDeviceEnergy(device.getId()));
+            }
+            return energyMap;
+        }
+
+        // 🔥 A user's own devices: served from the in-memory hot store
         for (Device device : devices) {
-            Double energy = energyUsageRepo.getTotalEnergyForDeviceBetween(device, start, end);
-            energyMap.put(device.getId(), energy != null ? energy : 0.0);
+            energyMap.put(device.getId(), energyService.getTodayEnergyForDevice(device));
         }
         return energyMap;
     }
@@ -0,0 +1,159 @@
+package com.role.implementation.devicemanagement.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.role.implementation.devicemanagement.repository.DeviceStatusWriter;
+import com.role.implementation.devicemanagement.repository.DeviceStatusWriter.StatusChange;
+import com.role.implementation.devicemanagement.repository.DeviceStatusWriter.VersionedState;
+import com.role.implementation.energytracking.model.DeviceStateTransition;
+import com.role.implementation.energytracking.service.EnergyMeteringService;
+
+/**
+ * Optimistic ON/OFF updates shared by toggles, scenes, bulk commands,
+ * schedules and policy enforcement. No row is locked ahead of a write.
+ *
+ * Switching to a given state is a conditional UPDATE per device: a device
+ * a concurrent writer already switched is simply not changed again (and
+ * gets no second transition). A toggle decides its target from the state
+ * it read, then compare-and-sets on the version; on a conflict it re-reads
+ * and retries up to the attempt limit, stopping early when a concurrent
+ * writer already reached the same target. Each attempt writes the status
+ * and its transition in one transaction, so they commit (and the in-memory
+ * state follows) together or not at all.
+ *
+ * Conflicts, retries and give-ups are counted (admin devices page).
+ */
+@Service
+public class DeviceStateUpdater {
+
+    private final DeviceStatusWriter deviceStatusWriter;
+    private final EnergyMeteringService energyMeteringService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+
+    private final LongAdder switched = new LongAdder();
+    private final LongAdder toggled = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public DeviceStateUpdater(DeviceStatusWriter deviceStatusWriter,
+                              EnergyMeteringService energyMeteringService,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${shems.device.cas.max-attempts:3}") int maxAttempts) {
+        this.deviceStatusWriter = deviceStatusWriter;
+        this.energyMeteringService = energyMeteringService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    // =========================================================
+    // 🔁 SWITCH TO A STATE
+    // =========================================================
+
+    /**
+     * Switches the candidates to {@code status} and records one transition
+     * per device actually changed. Returns those devices.
+     */
+    public List<StatusChange> switchDevices(List<StatusChange> candidates, boolean status, String source) {
+
+        List<StatusChange> changed = compareAndSwitch(candidates, status);
+        if (changed.isEmpty()) {
+            return changed;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<DeviceStateTransition> transitions = new ArrayList<>(changed.size());
+        for (StatusChange change : changed) {
+            transitions.add(new DeviceStateTransition(change.deviceId(), change.userId(), status,
+                    change.powerRating(), source, now));
+        }
+        energyMeteringService.recordTransitions(transitions);
+        return changed;
+    }
+
+    /**
+     * Same, without transitions (for callers that back-date their own).
+     */
+    public List<StatusChange> compareAndSwitch(List<StatusChange> candidates, boolean status) {
+
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        List<StatusChange> changed = deviceStatusWriter.switchDevices(candidates, status);
+        switched.add(changed.size());
+        conflicts.add(candidates.size() - changed.size());
+        return changed;
+    }
+
+    // =========================================================
+    // 🔀 TOGGLE
+    // =========================================================
+
+    /**
+     * Flips a device from the state it is read in. With {@code ownerId},
+     * only that user's device is changed. Call outside a transaction: each
+     * attempt commits on its own, so a retry reads the latest committed version.
+     * Returns true if this call switched the device.
+     */
+    public boolean toggle(long deviceId, Integer ownerId, String source) {
+
+        VersionedState state = deviceStatusWriter.readState(deviceId);
+        if (state == null || (ownerId != null && state.userId() != ownerId)) {
+            return false;
+        }
+
+        boolean target = !state.status();
+
+        for (int attempt = 1; ; attempt++) {
+
+            VersionedState read = state;
+
+            // 🔁 STATUS + ⚡ TRANSITION in one transaction per attempt
+            Boolean applied = transactionTemplate.execute(status -> {
+                if (!deviceStatusWriter.compareAndSetStatus(deviceId, target, read.version())) {
+                    return false;
+                }
+                energyMeteringService.recordTransitions(List.of(new DeviceStateTransition(deviceId,
+                        read.userId(), target, read.powerRating(), source, LocalDateTime.now())));
+                return true;
+            });
+
+            if (Boolean.TRUE.equals(applied)) {
+                toggled.increment();
+                return true;
+            }
+
+            conflicts.increment();
+            state = deviceStatusWriter.readState(deviceId);
+
+            // Deleted, or a concurrent writer already switched it to the target
+            if (state == null || state.status() == target) {
+                return false;
+            }
+
+            if (attempt >= maxAttempts) {
+                exhausted.increment();
+                System.out.println("⚠️ Toggle of device " + deviceId + " gave up after "
+                        + attempt + " conflicting attempts");
+                return false;
+            }
+            retries.increment();
+        }
+    }
+
+    public UpdateStats getStats() {
+        return new UpdateStats(switched.sum(), toggled.sum(), conflicts.sum(), retries.sum(), exhausted.sum());
+    }
+
+    public record UpdateStats(long switched, long toggled, long conflicts, long retries, long exhausted) {
+    }
+}
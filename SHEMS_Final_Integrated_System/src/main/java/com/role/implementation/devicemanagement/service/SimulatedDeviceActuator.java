@@ -0,0 +1,86 @@
+package com.role.implementation.devicemanagement.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process stand-in for real devices, used until a hardware adapter exists
+ * and for load-testing the command bus.
+ *
+ * Each command is acknowledged after a random latency. A configurable share
+ * of commands fails (negative ack) or is dropped (no ack at all, so the bus
+ * times out). The last acknowledged state of every device is kept.
+ */
+@Component
+@ConditionalOnProperty(name = "shems.actuator.adapter", havingValue = "SIMULATED", matchIfMissing = true)
+public class SimulatedDeviceActuator implements DeviceActuator {
+
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double failureRate;
+    private final double dropRate;
+
+    private final ScheduledExecutorService acks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "device-simulator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 🔌 deviceId → last acknowledged state
+    private final Map<Long, Boolean> states = new ConcurrentHashMap<>();
+
+    public SimulatedDeviceActuator(@Value("${shems.actuator.simulator.latency-ms:20}") long latencyMillis,
+                                   @Value("${shems.actuator.simulator.jitter-ms:30}") long jitterMillis,
+                                   @Value("${shems.actuator.simulator.failure-rate:0.0}") double failureRate,
+                                   @Value("${shems.actuator.simulator.drop-rate:0.0}") double dropRate) {
+        this.latencyMillis = Math.max(0, latencyMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+        this.failureRate = failureRate;
+        this.dropRate = dropRate;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        acks.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<Void> actuate(long deviceId, boolean on) {
+
+        CompletableFuture<Void> ack = new CompletableFuture<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        if (random.nextDouble() < dropRate) {
+            return ack;
+        }
+
+        boolean fail = random.nextDouble() < failureRate;
+        long delay = latencyMillis + (jitterMillis > 0 ? random.nextLong(jitterMillis + 1) : 0);
+
+        acks.schedule(() -> {
+            if (fail) {
+                ack.completeExceptionally(new IllegalStateException("Device " + deviceId + " rejected the command"));
+            } else {
+                states.put(deviceId, on);
+                ack.complete(null);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+
+        return ack;
+    }
+
+    public Boolean getState(long deviceId) {
+        return states.get(deviceId);
+    }
+}
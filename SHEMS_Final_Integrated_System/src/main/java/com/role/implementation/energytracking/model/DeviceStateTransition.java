@@ -0,0 +1,110 @@
+package com.role.implementation.energytracking.model;
+
+import java.time.LocalDateTime;
+import javax.persistence.*;
+
+/**
+ * One ON/OFF change of a device.
+ * Energy is integrated over the ON intervals between these rows,
+ * so metering cost scales with state changes instead of fleet size.
+ */
+@Entity
+@Table(name = "device_state_transitions",
+       indexes = @Index(name = "idx_transition_device_time", columnList = "device_id, changed_at"))
+public class DeviceStateTransition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 🔗 Plain ids (log table, survives without FK joins)
+    @Column(name = "device_id", nullable = false)
+    private Long deviceId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    // 🔌 New state: true = ON, false = OFF
+    @Column(nullable = false)
+    private boolean status;
+
+    // ⚡ Power rating (W) at the time of the change
+    @Column(nullable = false)
+    private double powerRating;
+
+    // 🧭 Who changed it: USER, ADMIN, SCHEDULE, POLICY
+    @Column(nullable = false, length = 20)
+    private String source;
+
+    // 🕒 When it changed
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    // ===== Constructors =====
+    public DeviceStateTransition() {
+    }
+
+    public DeviceStateTransition(Long deviceId, Integer userId, boolean status,
+                                 double powerRating, String source, LocalDateTime changedAt) {
+        this.deviceId = deviceId;
+        this.userId = userId;
+        this.status = status;
+        this.powerRating = powerRating;
+        this.source = source;
+        this.changedAt = changedAt;
+    }
+
+    // ===== Getters & Setters =====
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(Long deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public boolean isStatus() {
+        return status;
+    }
+
+    public void setStatus(boolean status) {
+        this.status = status;
+    }
+
+    public double getPowerRating() {
+        return powerRating;
+    }
+
+    public void setPowerRating(double powerRating) {
+        this.powerRating = powerRating;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
@@ -0,0 +1,41 @@
+package com.role.implementation.energytracking.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight energy reading used by the batched ingest path.
+ * Not an entity — it is written straight to the energy_usage table
+ * through a JDBC batch, so no Hibernate state is kept per row.
+ */
+public class EnergyReading {
+
+    private final long deviceId;
+    private final int userId;
+    private final double energyConsumed;
+    private final LocalDateTime timestamp;
+
+    public EnergyReading(long deviceId, int userId, double energyConsumed, LocalDateTime timestamp) {
+        this.deviceId = deviceId;
+        this.userId = userId;
+        this.energyConsumed = energyConsumed;
+        this.timestamp = timestamp;
+    }
+
+    // ===== Getters =====
+
+    public long getDeviceId() {
+        return deviceId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public double getEnergyConsumed() {
+        return energyConsumed;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,83 @@
+package com.role.implementation.energytracking.model;
+
+import java.time.LocalDateTime;
+import javax.persistence.*;
+
+/**
+ * Pre-aggregated energy total for one scope and period.
+ *
+ * Maintained incrementally by the ingest path for the combinations the
+ * dashboards read: device-hour, device-day, user-day, user-month, system-day.
+ */
+@Entity
+@Table(name = "energy_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_rollup_period",
+               columnNames = {"scope", "scope_id", "granularity", "period_start"}))
+public class EnergyRollup {
+
+    // ===== Scopes =====
+    public static final String SCOPE_DEVICE = "DEVICE";
+    public static final String SCOPE_USER = "USER";
+    public static final String SCOPE_SYSTEM = "SYSTEM";
+
+    // ===== Granularities =====
+    public static final String HOUR = "HOUR";
+    public static final String DAY = "DAY";
+    public static final String MONTH = "MONTH";
+
+    // Query bucket only (grouped from DAY rows, never stored)
+    public static final String WEEK = "WEEK";
+
+    // System rollups have no owner id
+    public static final long SYSTEM_ID = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // DEVICE, USER or SYSTEM
+    @Column(nullable = false, length = 10)
+    private String scope;
+
+    // Device id, user id or SYSTEM_ID
+    @Column(name = "scope_id", nullable = false)
+    private Long scopeId;
+
+    // HOUR, DAY or MONTH
+    @Column(nullable = false, length = 10)
+    private String granularity;
+
+    // 🕒 Start of the hour / day / month
+    @Column(name = "period_start", nullable = false)
+    private LocalDateTime periodStart;
+
+    // ⚡ Energy consumed in kWh
+    @Column(nullable = false)
+    private double energyConsumed;
+
+    // ===== Getters =====
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public Long getScopeId() {
+        return scopeId;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public LocalDateTime getPeriodStart() {
+        return periodStart;
+    }
+
+    public double getEnergyConsumed() {
+        return energyConsumed;
+    }
+}
@@ -6,7 +6,10 @@ import javax.persistence.*;
 import com.role.implementation.devicemanagement.model.Device;
 
 @Entity
-@Table(name = "energy_usage")
+@Table(
+    name = "energy_usage",
+    indexes = @Index(name = "idx_energy_device_time", columnList = "device_id, timestamp")
+)
 public class EnergyUsage {
 
     @Id
@@ -14,8 +17,10 @@ public class EnergyUsage {
     private Long id;
 
     // 🔗 Link energy record to a device
+    // (no FK constraint: MySQL cannot partition a table that has one)
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "device_id", nullable = false)
+    @JoinColumn(name = "device_id", nullable = false,
+                foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Device device;
 
     // ⚡ Energy consumed in kWh
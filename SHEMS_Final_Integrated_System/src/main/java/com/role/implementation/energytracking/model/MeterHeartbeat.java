@@ -0,0 +1,37 @@
+package com.role.implementation.energytracking.model;
+
+import java.time.LocalDateTime;
+import javax.persistence.*;
+
+/**
+ * Single-row marker: energy of every ON device has been written up to
+ * {@code settledUntil}. After a restart, the meter backfills from here,
+ * so downtime is metered without replaying it minute by minute.
+ */
+@Entity
+@Table(name = "meter_heartbeat")
+public class MeterHeartbeat {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id = SINGLETON_ID;
+
+    @Column(name = "settled_until", nullable = false)
+    private LocalDateTime settledUntil;
+
+    protected MeterHeartbeat() {
+    }
+
+    public MeterHeartbeat(LocalDateTime settledUntil) {
+        this.settledUntil = settledUntil;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public LocalDateTime getSettledUntil() {
+        return settledUntil;
+    }
+}
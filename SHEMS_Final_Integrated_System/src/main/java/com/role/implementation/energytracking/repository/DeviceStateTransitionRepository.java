@@ -0,0 +1,22 @@
+package com.role.implementation.energytracking.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.role.implementation.energytracking.model.DeviceStateTransition;
+
+@Repository
+public interface DeviceStateTransitionRepository extends JpaRepository<DeviceStateTransition, Long> {
+
+    // 🔹 Device id + latest change time of every device changed after the given time (startup backfill)
+    @Query("SELECT t.deviceId, MAX(t.changedAt) FROM DeviceStateTransition t WHERE t.changedAt > :since GROUP BY t.deviceId")
+    List<Object[]> findLastChangeSince(@Param("since") LocalDateTime since);
+
+    // 🔹 REQUIRED FOR SAFE DEVICE DELETE
+    void deleteByDeviceId(Long deviceId);
+}
@@ -0,0 +1,46 @@
+package com.role.implementation.energytracking.repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.role.implementation.energytracking.model.DeviceStateTransition;
+
+/**
+ * Batch insert path for device state transitions.
+ *
+ * Like energy_usage, the transition log uses IDENTITY ids, so bulk state
+ * changes (policy enforcement) are written as JDBC batches instead of one
+ * save per row. Runs in the caller's transaction.
+ */
+@Repository
+public class DeviceStateTransitionWriter {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO device_state_transitions (device_id, user_id, status, power_rating, source, changed_at)
+        VALUES (?, ?, ?, ?, ?, ?)
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public DeviceStateTransitionWriter(JdbcTemplate jdbcTemplate,
+                                       @Value("${shems.energy.ingest.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public void insertAll(List<DeviceStateTransition> transitions) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, transitions, batchSize, (ps, transition) -> {
+            ps.setLong(1, transition.getDeviceId());
+            ps.setInt(2, transition.getUserId());
+            ps.setBoolean(3, transition.isStatus());
+            ps.setDouble(4, transition.getPowerRating());
+            ps.setString(5, transition.getSource());
+            ps.setTimestamp(6, Timestamp.valueOf(transition.getChangedAt()));
+        });
+    }
+}
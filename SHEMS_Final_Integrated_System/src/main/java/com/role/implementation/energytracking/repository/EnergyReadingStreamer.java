@@ -0,0 +1,71 @@
+package com.role.implementation.energytracking.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.role.implementation.energytracking.model.EnergyReading;
+
+/**
+ * Read-side counterpart of EnergyUsageBatchWriter.
+ *
+ * Streams energy_usage rows through a callback instead of building a result
+ * list, so large ranges can be scanned without loading them into memory.
+ */
+@Repository
+public class EnergyReadingStreamer {
+
+    private static final String READINGS_SINCE_SQL = """
+        SELECT e.device_id, d.user_id, e.energy_consumed, e.timestamp
+        FROM energy_usage e JOIN devices d ON d.id = e.device_id
+        WHERE e.timestamp >= ?
+    """;
+
+    // Ordered along idx_energy_device_time, so each device's readings arrive together
+    private static final String READINGS_BETWEEN_BY_DEVICE_SQL = """
+        SELECT e.device_id, d.user_id, e.energy_consumed, e.timestamp
+        FROM energy_usage e JOIN devices d ON d.id = e.device_id
+        WHERE e.timestamp >= ? AND e.timestamp < ?
+        ORDER BY e.device_id, e.timestamp
+    """;
+
+    private final JdbcTemplate streamingTemplate;
+
+    public EnergyReadingStreamer(JdbcTemplate jdbcTemplate) {
+        // MySQL Connector/J only streams row by row with this fetch size
+        this.streamingTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Passes every reading with timestamp at or after {@code start} to the consumer.
+     */
+    public void streamReadingsSince(LocalDateTime start, Consumer<EnergyReading> consumer) {
+        streamingTemplate.query(READINGS_SINCE_SQL, rs -> {
+            consumer.accept(new EnergyReading(
+                    rs.getLong(1),
+                    rs.getInt(2),
+                    rs.getDouble(3),
+                    rs.getTimestamp(4).toLocalDateTime()));
+        }, Timestamp.valueOf(start));
+    }
+
+    /**
+     * Passes every reading in [from, to) to the handler, grouped by device
+     * and in time order within a device. No reading objects are created.
+     */
+    public void streamReadingsByDevice(LocalDateTime from, LocalDateTime to, ReadingHandler handler) {
+        streamingTemplate.query(READINGS_BETWEEN_BY_DEVICE_SQL, rs -> {
+            handler.handle(rs.getLong(1), rs.getInt(2), rs.getDouble(3),
+                    rs.getTimestamp(4).toLocalDateTime());
+        }, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    @FunctionalInterface
+    public interface ReadingHandler {
+        void handle(long deviceId, int userId, double energy, LocalDateTime timestamp);
+    }
+}
@@ -0,0 +1,42 @@
+package com.role.implementation.energytracking.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.role.implementation.energytracking.model.EnergyRollup;
+
+@Repository
+public interface EnergyRollupRepository extends JpaRepository<EnergyRollup, Long> {
+
+    // 🔹 Total of the rollup rows whose period starts in [start, end)
+    @Query("""
+        SELECT COALESCE(SUM(r.energyConsumed), 0)
+        FROM EnergyRollup r
+        WHERE r.scope = :scope
+          AND r.scopeId = :scopeId
+          AND r.granularity = :granularity
+          AND r.periodStart >= :start
+          AND r.periodStart < :end
+    """)
+    Double sumEnergy(@Param("scope") String scope,
+                     @Param("scopeId") Long scopeId,
+                     @Param("granularity") String granularity,
+                     @Param("start") LocalDateTime start,
+                     @Param("end") LocalDateTime end);
+
+    // 🔹 Total of every rollup row of one scope and granularity (all-time totals)
+    @Query("""
+        SELECT COALESCE(SUM(r.energyConsumed), 0)
+        FROM EnergyRollup r
+        WHERE r.scope = :scope
+          AND r.scopeId = :scopeId
+          AND r.granularity = :granularity
+    """)
+    Double sumAllEnergy(@Param("scope") String scope,
+                        @Param("scopeId") Long scopeId,
+                        @Param("granularity") String granularity);
+}
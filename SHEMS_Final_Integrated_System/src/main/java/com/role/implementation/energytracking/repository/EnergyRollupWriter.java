@@ -0,0 +1,246 @@
+package com.role.implementation.energytracking.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.role.implementation.energytracking.model.EnergyReading;
+import com.role.implementation.energytracking.model.EnergyRollup;
+
+/**
+ * JDBC maintenance of the energy_rollups table.
+ *
+ * Ingest adds each chunk of readings to the rollups with one upsert batch,
+ * inside the same transaction as the raw insert. Rebuild and delete support
+ * are plain set-based statements.
+ */
+@Repository
+public class EnergyRollupWriter {
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO energy_rollups (scope, scope_id, granularity, period_start, energy_consumed)
+        VALUES (?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE energy_consumed = energy_consumed + VALUES(energy_consumed)
+    """;
+
+    private static final String DELETE_RANGE_SQL = """
+        DELETE FROM energy_rollups
+        WHERE period_start >= ? AND period_start < ?
+    """;
+
+    // 🔁 Rebuild statements: one grouped INSERT ... SELECT per rollup kind
+    private static final String[] REBUILD_SQL = {
+        """
+        INSERT INTO energy_rollups (scope, scope_id, granularity, period_start, energy_consumed)
+        SELECT 'DEVICE', e.device_id, 'HOUR', DATE_FORMAT(e.timestamp, '%Y-%m-%d %H:00:00'), SUM(e.energy_consumed)
+        FROM energy_usage e
+        WHERE e.timestamp >= ? AND e.timestamp < ?
+        GROUP BY e.device_id, DATE_FORMAT(e.timestamp, '%Y-%m-%d %H:00:00')
+        """,
+        """
+        INSERT INTO energy_rollups (scope, scope_id, granularity, period_start, energy_consumed)
+        SELECT 'DEVICE', e.device_id, 'DAY', DATE(e.timestamp), SUM(e.energy_consumed)
+        FROM energy_usage e
+        WHERE e.timestamp >= ? AND e.timestamp < ?
+        GROUP BY e.device_id, DATE(e.timestamp)
+        """,
+        """
+        INSERT INTO energy_rollups (scope, scope_id, granularity, period_start, energy_consumed)
+        SELECT 'USER', d.user_id, 'DAY', DATE(e.timestamp), SUM(e.energy_consumed)
+        FROM energy_usage e JOIN devices d ON d.id = e.device_id
+        WHERE e.timestamp >= ? AND e.timestamp < ?
+        GROUP BY d.user_id, DATE(e.timestamp)
+        """,
+        """
+        INSERT INTO energy_rollups (scope, scope_id, granularity, period_start, energy_consumed)
+        SELECT 'USER', d.user_id, 'MONTH', DATE_FORMAT(e.timestamp, '%Y-%m-01'), SUM(e.energy_consumed)
+        FROM energy_usage e JOIN devices d ON d.id = e.device_id
+        WHERE e.timestamp >= ? AND e.timestamp < ?
+        GROUP BY d.user_id, DATE_FORMAT(e.timestamp, '%Y-%m-01')
+        """,
+        """
+        INSERT INTO energy_rollups (scope, scope_id, granularity, period_start, energy_consumed)
+        SELECT 'SYSTEM', 0, 'DAY', DATE(e.timestamp), SUM(e.energy_consumed)
+        FROM energy_usage e
+        WHERE e.timestamp >= ? AND e.timestamp < ?
+        GROUP BY DATE(e.timestamp)
+        """
+    };
+
+    // ➖ Take a deleted device's daily energy out of its owner's and the system's rollups
+    private static final String SUBTRACT_DEVICE_FROM_USER_DAY_SQL = """
+        UPDATE energy_rollups u
+        JOIN (SELECT period_start, SUM(energy_consumed) AS energy
+              FROM energy_rollups
+              WHERE scope = 'DEVICE' AND scope_id = ? AND granularity = 'DAY'
+              GROUP BY period_start) d
+          ON u.period_start = d.period_start
+        SET u.energy_consumed = u.energy_consumed - d.energy
+        WHERE u.scope = 'USER' AND u.scope_id = ? AND u.granularity = 'DAY'
+    """;
+
+    private static final String SUBTRACT_DEVICE_FROM_USER_MONTH_SQL = """
+        UPDATE energy_rollups u
+        JOIN (SELECT CAST(DATE_FORMAT(period_start, '%Y-%m-01') AS DATETIME) AS month_start,
+                     SUM(energy_consumed) AS energy
+              FROM energy_rollups
+              WHERE scope = 'DEVICE' AND scope_id = ? AND granularity = 'DAY'
+              GROUP BY month_start) d
+          ON u.period_start = d.month_start
+        SET u.energy_consumed = u.energy_consumed - d.energy
+        WHERE u.scope = 'USER' AND u.scope_id = ? AND u.granularity = 'MONTH'
+    """;
+
+    private static final String SUBTRACT_DEVICE_FROM_SYSTEM_DAY_SQL = """
+        UPDATE energy_rollups s
+        JOIN (SELECT period_start, SUM(energy_consumed) AS energy
+              FROM energy_rollups
+              WHERE scope = 'DEVICE' AND scope_id = ? AND granularity = 'DAY'
+              GROUP BY period_start) d
+          ON s.period_start = d.period_start
+        SET s.energy_consumed = s.energy_consumed - d.energy
+        WHERE s.scope = 'SYSTEM' AND s.scope_id = 0 AND s.granularity = 'DAY'
+    """;
+
+    private static final String DELETE_SCOPE_SQL =
+            "DELETE FROM energy_rollups WHERE scope = ? AND scope_id = ?";
+
+    private static final String DELETE_HOURLY_BEFORE_SQL = """
+        DELETE FROM energy_rollups
+        WHERE granularity = 'HOUR' AND period_start < ?
+        LIMIT ?
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EnergyRollupWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // =========================================================
+    // ➕ INCREMENTAL UPDATE (INGEST PATH)
+    // =========================================================
+
+    /**
+     * Adds readings to every rollup they belong to.
+     * Readings are pre-aggregated so each rollup row is touched once per call,
+     * in a stable order to keep concurrent flushes from deadlocking.
+     */
+    public void addReadings(List<EnergyReading> readings) {
+
+        Map<RollupKey, Double> totals = new TreeMap<>();
+
+        for (EnergyReading reading : readings) {
+
+            LocalDateTime hour = reading.getTimestamp().truncatedTo(ChronoUnit.HOURS);
+            LocalDateTime day = reading.getTimestamp().toLocalDate().atStartOfDay();
+            LocalDateTime month = day.withDayOfMonth(1);
+            double energy = reading.getEnergyConsumed();
+
+            totals.merge(new RollupKey(EnergyRollup.SCOPE_DEVICE, reading.getDeviceId(), EnergyRollup.HOUR, hour), energy, Double::sum);
+            totals.merge(new RollupKey(EnergyRollup.SCOPE_DEVICE, reading.getDeviceId(), EnergyRollup.DAY, day), energy, Double::sum);
+            totals.merge(new RollupKey(EnergyRollup.SCOPE_USER, reading.getUserId(), EnergyRollup.DAY, day), energy, Double::sum);
+            totals.merge(new RollupKey(EnergyRollup.SCOPE_USER, reading.getUserId(), EnergyRollup.MONTH, month), energy, Double::sum);
+            totals.merge(new RollupKey(EnergyRollup.SCOPE_SYSTEM, EnergyRollup.SYSTEM_ID, EnergyRollup.DAY, day), energy, Double::sum);
+        }
+
+        List<Map.Entry<RollupKey, Double>> rows = new ArrayList<>(totals.entrySet());
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getKey().scope());
+            ps.setLong(2, row.getKey().scopeId());
+            ps.setString(3, row.getKey().granularity());
+            ps.setTimestamp(4, Timestamp.valueOf(row.getKey().periodStart()));
+            ps.setDouble(5, row.getValue());
+        });
+    }
+
+    // =========================================================
+    // 🔁 REBUILD (BACKFILL)
+    // =========================================================
+
+    /**
+     * Recomputes all rollups whose period starts in [from, to) from raw readings.
+     * Both bounds must be month starts so monthly rollups are rebuilt whole.
+     */
+    public void rebuild(LocalDateTime from, LocalDateTime to) {
+
+        Timestamp start = Timestamp.valueOf(from);
+        Timestamp end = Timestamp.valueOf(to);
+
+        jdbcTemplate.update(DELETE_RANGE_SQL, start, end);
+
+        for (String sql : REBUILD_SQL) {
+            jdbcTemplate.update(sql, start, end);
+        }
+    }
+
+    // =========================================================
+    // ❌ DELETE SUPPORT
+    // =========================================================
+
+    /**
+     * Removes a device's rollups and subtracts its energy from its owner's
+     * and the system's rollups. Call before the device is deleted.
+     */
+    public void removeDevice(long deviceId, int userId) {
+        jdbcTemplate.update(SUBTRACT_DEVICE_FROM_USER_DAY_SQL, deviceId, userId);
+        jdbcTemplate.update(SUBTRACT_DEVICE_FROM_USER_MONTH_SQL, deviceId, userId);
+        jdbcTemplate.update(SUBTRACT_DEVICE_FROM_SYSTEM_DAY_SQL, deviceId);
+        jdbcTemplate.update(DELETE_SCOPE_SQL, EnergyRollup.SCOPE_DEVICE, deviceId);
+    }
+
+    /**
+     * Removes a user's own rollups. Call after removeDevice for each of their devices.
+     */
+    public void removeUser(int userId) {
+        jdbcTemplate.update(DELETE_SCOPE_SQL, EnergyRollup.SCOPE_USER, userId);
+    }
+
+    // =========================================================
+    // 🧹 RETENTION
+    // =========================================================
+
+    /**
+     * Deletes hourly rollups that start before the cutoff, in chunks of
+     * {@code chunkSize} rows so no single statement holds locks for long.
+     * Daily and monthly rollups are kept. Returns the number of rows deleted.
+     */
+    public int deleteHourlyBefore(LocalDateTime cutoff, int chunkSize) {
+
+        Timestamp before = Timestamp.valueOf(cutoff);
+        int total = 0;
+        int deleted;
+
+        do {
+            deleted = jdbcTemplate.update(DELETE_HOURLY_BEFORE_SQL, before, chunkSize);
+            total += deleted;
+        } while (deleted == chunkSize);
+
+        return total;
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private record RollupKey(String scope, long scopeId, String granularity, LocalDateTime periodStart)
+            implements Comparable<RollupKey> {
+
+        @Override
+        public int compareTo(RollupKey other) {
+            int result = scope.compareTo(other.scope);
+            if (result == 0) result = Long.compare(scopeId, other.scopeId);
+            if (result == 0) result = granularity.compareTo(other.granularity);
+            if (result == 0) result = periodStart.compareTo(other.periodStart);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.role.implementation.energytracking.repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.role.implementation.energytracking.model.EnergyReading;
+
+/**
+ * Write-optimized ingest path for energy readings.
+ *
+ * EnergyUsage uses IDENTITY ids, which stops Hibernate from batching inserts.
+ * This writer bypasses the persistence context and sends readings as JDBC
+ * batches, one transaction per chunk. The energy rollups are updated in the
+ * same transaction.
+ */
+@Repository
+public class EnergyUsageBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO energy_usage (device_id, energy_consumed, timestamp) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EnergyRollupWriter rollupWriter;
+    private final int batchSize;
+
+    public EnergyUsageBatchWriter(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  EnergyRollupWriter rollupWriter,
+                                  @Value("${shems.energy.ingest.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.rollupWriter = rollupWriter;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Inserts all readings, committing once per chunk of {@code batchSize} rows.
+     * Returns the number of rows written.
+     */
+    public int writeAll(List<EnergyReading> readings) {
+
+        int written = 0;
+
+        for (int from = 0; from < readings.size(); from += batchSize) {
+            List<EnergyReading> chunk =
+                    readings.subList(from, Math.min(from + batchSize, readings.size()));
+
+            transactionTemplate.executeWithoutResult(status -> insertChunk(chunk));
+            written += chunk.size();
+        }
+
+        return written;
+    }
+
+    private void insertChunk(List<EnergyReading> chunk) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), (ps, reading) -> {
+            ps.setLong(1, reading.getDeviceId());
+            ps.setDouble(2, reading.getEnergyConsumed());
+            ps.setTimestamp(3, Timestamp.valueOf(reading.getTimestamp()));
+        });
+
+        rollupWriter.addReadings(chunk);
+    }
+}
@@ -0,0 +1,203 @@
+package com.role.implementation.energytracking.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Storage maintenance for the energy_usage table.
+ *
+ * When partitioning is enabled the table is RANGE COLUMNS partitioned on
+ * timestamp, one partition per month (p202401, p202402, ... plus a pmax
+ * catch-all). Expired months are removed with DROP PARTITION instead of
+ * row-by-row deletes, and range queries on timestamp only touch the
+ * partitions they need.
+ *
+ * MySQL does not allow foreign keys on partitioned tables and requires the
+ * partition column in every unique key, so conversion drops the device FK
+ * and widens the primary key to (id, timestamp).
+ */
+@Repository
+public class EnergyUsagePartitionManager {
+
+    private static final String TABLE = "energy_usage";
+    private static final String MAX_PARTITION = "pmax";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'uuuuMM");
+
+    private static final String COUNT_PARTITIONS_SQL = """
+        SELECT COUNT(*)
+        FROM information_schema.PARTITIONS
+        WHERE TABLE_SCHEMA = DATABASE()
+          AND TABLE_NAME = ?
+          AND PARTITION_NAME IS NOT NULL
+    """;
+
+    private static final String FIND_PARTITION_NAMES_SQL = """
+        SELECT PARTITION_NAME
+        FROM information_schema.PARTITIONS
+        WHERE TABLE_SCHEMA = DATABASE()
+          AND TABLE_NAME = ?
+          AND PARTITION_NAME IS NOT NULL
+        ORDER BY PARTITION_ORDINAL_POSITION
+    """;
+
+    private static final String FIND_FOREIGN_KEYS_SQL = """
+        SELECT CONSTRAINT_NAME
+        FROM information_schema.TABLE_CONSTRAINTS
+        WHERE TABLE_SCHEMA = DATABASE()
+          AND TABLE_NAME = ?
+          AND CONSTRAINT_TYPE = 'FOREIGN KEY'
+    """;
+
+    private static final String DELETE_BEFORE_SQL =
+            "DELETE FROM energy_usage WHERE timestamp < ? LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EnergyUsagePartitionManager(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // =========================================================
+    // 🗂 PARTITION LAYOUT
+    // =========================================================
+
+    public boolean isPartitioned() {
+        Integer count = jdbcTemplate.queryForObject(COUNT_PARTITIONS_SQL, Integer.class, TABLE);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Converts the plain table into monthly partitions covering [first, last].
+     * Rows outside that range land in the first partition or in pmax.
+     * This rewrites the table once, so it should run on a quiet system.
+     */
+    public void convertToMonthlyPartitions(YearMonth first, YearMonth last) {
+
+        for (String foreignKey : jdbcTemplate.queryForList(FIND_FOREIGN_KEYS_SQL, String.class, TABLE)) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP FOREIGN KEY " + foreignKey);
+        }
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PRIMARY KEY, ADD PRIMARY KEY (id, timestamp)");
+
+        List<String> partitions = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            partitions.add(partitionDefinition(month));
+        }
+        partitions.add("PARTITION " + MAX_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " PARTITION BY RANGE COLUMNS(timestamp) ("
+                + String.join(", ", partitions) + ")");
+    }
+
+    /**
+     * Splits new monthly partitions off pmax so every month up to
+     * {@code last} has its own partition. Returns the partitions added.
+     */
+    public List<String> addPartitionsUpTo(YearMonth last) {
+
+        List<String> existing = findPartitionNames();
+        YearMonth month = newestMonth(existing);
+        List<String> added = new ArrayList<>();
+
+        if (month == null) {
+            return added;
+        }
+
+        List<String> partitions = new ArrayList<>();
+        for (month = month.plusMonths(1); !month.isAfter(last); month = month.plusMonths(1)) {
+            partitions.add(partitionDefinition(month));
+            added.add(month.format(PARTITION_NAME));
+        }
+
+        if (!partitions.isEmpty()) {
+            partitions.add("PARTITION " + MAX_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + MAX_PARTITION
+                    + " INTO (" + String.join(", ", partitions) + ")");
+        }
+
+        return added;
+    }
+
+    /**
+     * Drops the partitions of every month before {@code month}.
+     * Each drop is a metadata operation, independent of the row count.
+     * Returns the partitions dropped.
+     */
+    public List<String> dropPartitionsBefore(YearMonth month) {
+
+        List<String> expired = new ArrayList<>();
+
+        for (String name : findPartitionNames()) {
+            YearMonth partitionMonth = monthOf(name);
+            if (partitionMonth != null && partitionMonth.isBefore(month)) {
+                expired.add(name);
+            }
+        }
+
+        if (!expired.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + String.join(", ", expired));
+        }
+
+        return expired;
+    }
+
+    // =========================================================
+    // 🧹 UNPARTITIONED FALLBACK
+    // =========================================================
+
+    /**
+     * Deletes readings older than the cutoff in chunks of {@code chunkSize}
+     * rows, each in its own short transaction. Returns the rows deleted.
+     */
+    public int deleteReadingsBefore(LocalDateTime cutoff, int chunkSize) {
+
+        Timestamp before = Timestamp.valueOf(cutoff);
+        int total = 0;
+        int deleted;
+
+        do {
+            deleted = jdbcTemplate.update(DELETE_BEFORE_SQL, before, chunkSize);
+            total += deleted;
+        } while (deleted == chunkSize);
+
+        return total;
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList(FIND_PARTITION_NAMES_SQL, String.class, TABLE);
+    }
+
+    private String partitionDefinition(YearMonth month) {
+        return "PARTITION " + month.format(PARTITION_NAME)
+                + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + " 00:00:00')";
+    }
+
+    private YearMonth newestMonth(List<String> names) {
+        YearMonth newest = null;
+        for (String name : names) {
+            YearMonth month = monthOf(name);
+            if (month != null && (newest == null || month.isAfter(newest))) {
+                newest = month;
+            }
+        }
+        return newest;
+    }
+
+    private YearMonth monthOf(String partitionName) {
+        if (MAX_PARTITION.equals(partitionName)) {
+            return null;
+        }
+        return YearMonth.parse(partitionName, PARTITION_NAME);
+    }
+}
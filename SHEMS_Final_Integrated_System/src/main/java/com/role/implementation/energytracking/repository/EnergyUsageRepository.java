@@ -14,7 +14,7 @@ import com.role.implementation.devicemanagement.model.Device;
 import com.role.implementation.energytracking.model.EnergyUsage;
 
 @Repository
-public interface EnergyUsageRepository extends JpaRepository<EnergyUsage, Long> {
+public interface EnergyUsageRepository extends JpaRepository<EnergyUsage, Long>, EnergyUsageRepositoryCustom {
 
     // =========================================================
     // BASIC QUERIES
@@ -27,17 +27,14 @@ public interface EnergyUsageRepository extends JpaRepository<EnergyUsage, Long>
 
     List<EnergyUsage> findByTimestampBetween(LocalDateTime start, LocalDateTime end);
 
+    // 🔹 Oldest reading (rollup backfill start)
+    @Query("SELECT MIN(e.timestamp) FROM EnergyUsage e")
+    LocalDateTime findEarliestTimestamp();
+
     // =========================================================
     // USER LEVEL ANALYTICS
     // =========================================================
 
-    @Query("""
-        SELECT COALESCE(SUM(e.energyConsumed), 0)
-        FROM EnergyUsage e
-        WHERE e.device.user.id = :userId
-    """)
-    Double getTotalEnergyByUserId(@Param("userId") Integer userId);
-
     @Query("""
         SELECT COALESCE(SUM(e.energyConsumed), 0)
         FROM EnergyUsage e
@@ -93,11 +90,13 @@ public interface EnergyUsageRepository extends JpaRepository<EnergyUsage, Long>
     // ✅ ADMIN POLICY SUPPORT (SAFE ADDITION)
     // =========================================================
 
+    // 🔹 Range predicate (not DATE(timestamp)) so the index and partitions are used
     @Query("""
         SELECT COALESCE(SUM(e.energyConsumed), 0)
         FROM EnergyUsage e
         WHERE e.device.id = :deviceId
-          AND DATE(e.timestamp) = CURRENT_DATE
+          AND e.timestamp >= :start
     """)
-    Optional<Double> findTodayEnergyByDeviceId(@Param("deviceId") Long deviceId);
+    Optional<Double> findEnergyByDeviceIdSince(@Param("deviceId") Long deviceId,
+                                               @Param("start") LocalDateTime start);
 }
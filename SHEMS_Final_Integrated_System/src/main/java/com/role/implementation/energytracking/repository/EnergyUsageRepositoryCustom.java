@@ -0,0 +1,49 @@
+package com.role.implementation.energytracking.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Hand-written queries of EnergyUsageRepository (implemented in EnergyUsageRepositoryImpl).
+ */
+public interface EnergyUsageRepositoryCustom {
+
+    /**
+     * Energy of one scope (EnergyRollup.SCOPE_*, with its scope id) per bucket,
+     * for buckets starting in [from, to). Granularity is EnergyRollup.DAY,
+     * WEEK (Monday-based) or MONTH; {@code from} is aligned down to a bucket start.
+     *
+     * Runs one grouped query. The result is ordered by bucket start and has an
+     * entry for every bucket, 0.0 where nothing was consumed.
+     */
+    Map<LocalDate, Double> sumByBucket(String scope, long scopeId,
+                                       LocalDate from, LocalDate to,
+                                       String granularity);
+
+    /**
+     * Streams the DEVICE and USER totals of every rollup row of the given
+     * granularity whose period starts in [start, end), one callback per
+     * scope id, from a single grouped query.
+     */
+    void forEachScopeTotal(String granularity, LocalDateTime start, LocalDateTime end,
+                           ScopeTotalHandler handler);
+
+    /**
+     * Streams the per-bucket totals of every scope id of one scope, for
+     * buckets starting in [from, to), from a single grouped query. Buckets
+     * without energy are not reported.
+     */
+    void forEachBucketTotal(String scope, LocalDate from, LocalDate to, String granularity,
+                            BucketTotalHandler handler);
+
+    @FunctionalInterface
+    interface BucketTotalHandler {
+        void handle(long scopeId, LocalDate bucketStart, double energy);
+    }
+
+    @FunctionalInterface
+    interface ScopeTotalHandler {
+        void handle(String scope, long scopeId, double energy);
+    }
+}
@@ -0,0 +1,132 @@
+package com.role.implementation.energytracking.repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.role.implementation.energytracking.model.EnergyRollup;
+
+/**
+ * Set-based aggregation over the energy rollups.
+ *
+ * Daily rollups exist for every scope and are kept forever, so day, week
+ * and month buckets are all grouped from them in a single statement.
+ * Fleet-wide totals are streamed row by row instead of mapped to entities.
+ */
+public class EnergyUsageRepositoryImpl implements EnergyUsageRepositoryCustom {
+
+    private static final String SUM_BY_BUCKET_SQL = """
+        SELECT %s AS bucket_start, SUM(energy_consumed)
+        FROM energy_rollups
+        WHERE scope = ? AND scope_id = ? AND granularity = 'DAY'
+          AND period_start >= ? AND period_start < ?
+        GROUP BY bucket_start
+    """;
+
+    private static final String SUM_BY_SCOPE_ID_AND_BUCKET_SQL = """
+        SELECT scope_id, %s AS bucket_start, SUM(energy_consumed)
+        FROM energy_rollups
+        WHERE scope = ? AND granularity = 'DAY'
+          AND period_start >= ? AND period_start < ?
+        GROUP BY scope_id, bucket_start
+    """;
+
+    private static final String SUM_BY_SCOPE_ID_SQL = """
+        SELECT scope, scope_id, SUM(energy_consumed)
+        FROM energy_rollups
+        WHERE granularity = ? AND scope IN ('DEVICE', 'USER')
+          AND period_start >= ? AND period_start < ?
+        GROUP BY scope, scope_id
+    """;
+
+    private static final String DAY_BUCKET = "DATE(period_start)";
+    private static final String WEEK_BUCKET = "DATE(DATE_SUB(period_start, INTERVAL WEEKDAY(period_start) DAY))";
+    private static final String MONTH_BUCKET = "DATE(DATE_FORMAT(period_start, '%Y-%m-01'))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EnergyUsageRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Map<LocalDate, Double> sumByBucket(String scope, long scopeId,
+                                              LocalDate from, LocalDate to,
+                                              String granularity) {
+
+        LocalDate first = bucketStart(from, granularity);
+
+        Map<LocalDate, Double> totals = new HashMap<>();
+        jdbcTemplate.query(SUM_BY_BUCKET_SQL.formatted(bucketExpression(granularity)),
+                rs -> {
+                    totals.put(rs.getDate(1).toLocalDate(), rs.getDouble(2));
+                },
+                scope, scopeId, Date.valueOf(first), Date.valueOf(to));
+
+        // 0️⃣ Zero-fill so every bucket in the range is present, in order
+        Map<LocalDate, Double> buckets = new LinkedHashMap<>();
+        for (LocalDate bucket = first; bucket.isBefore(to); bucket = nextBucket(bucket, granularity)) {
+            buckets.put(bucket, totals.getOrDefault(bucket, 0.0));
+        }
+
+        return buckets;
+    }
+
+    @Override
+    public void forEachScopeTotal(String granularity, LocalDateTime start, LocalDateTime end,
+                                  ScopeTotalHandler handler) {
+
+        jdbcTemplate.query(SUM_BY_SCOPE_ID_SQL,
+                rs -> {
+                    handler.handle(rs.getString(1), rs.getLong(2), rs.getDouble(3));
+                },
+                granularity, Timestamp.valueOf(start), Timestamp.valueOf(end));
+    }
+
+    @Override
+    public void forEachBucketTotal(String scope, LocalDate from, LocalDate to, String granularity,
+                                   BucketTotalHandler handler) {
+
+        jdbcTemplate.query(SUM_BY_SCOPE_ID_AND_BUCKET_SQL.formatted(bucketExpression(granularity)),
+                rs -> {
+                    handler.handle(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getDouble(3));
+                },
+                scope, Date.valueOf(bucketStart(from, granularity)), Date.valueOf(to));
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private String bucketExpression(String granularity) {
+        return switch (granularity) {
+            case EnergyRollup.DAY -> DAY_BUCKET;
+            case EnergyRollup.WEEK -> WEEK_BUCKET;
+            case EnergyRollup.MONTH -> MONTH_BUCKET;
+            default -> throw new IllegalArgumentException("Unsupported bucket granularity: " + granularity);
+        };
+    }
+
+    private LocalDate bucketStart(LocalDate date, String granularity) {
+        return switch (granularity) {
+            case EnergyRollup.WEEK -> date.with(DayOfWeek.MONDAY);
+            case EnergyRollup.MONTH -> date.withDayOfMonth(1);
+            default -> date;
+        };
+    }
+
+    private LocalDate nextBucket(LocalDate bucket, String granularity) {
+        return switch (granularity) {
+            case EnergyRollup.WEEK -> bucket.plusWeeks(1);
+            case EnergyRollup.MONTH -> bucket.plusMonths(1);
+            default -> bucket.plusDays(1);
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.role.implementation.energytracking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.role.implementation.energytracking.model.MeterHeartbeat;
+
+@Repository
+public interface MeterHeartbeatRepository extends JpaRepository<MeterHeartbeat, Integer> {
+}
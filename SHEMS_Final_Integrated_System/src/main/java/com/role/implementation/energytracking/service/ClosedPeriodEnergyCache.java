@@ -0,0 +1,326 @@
+package com.role.implementation.energytracking.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.role.implementation.energytracking.model.EnergyRollup;
+import com.role.implementation.energytracking.repository.EnergyUsageRepository;
+
+/**
+ * Permanent in-memory cache of closed day and month totals.
+ *
+ * A day or month is closed once it has ended and the grace period has passed
+ * (so the last accumulator window has been written). After that its total
+ * never changes, except when a device or user is deleted, so it is loaded
+ * once and kept. Only the current, still-open period is computed live.
+ *
+ * Each scope id has a ring of day slots and a ring of month slots, tagged
+ * with the period they hold. User and system totals are warmed up at
+ * startup and extended every night; device totals are loaded on first use.
+ */
+@Component
+public class ClosedPeriodEnergyCache {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final EnergyUsageRepository energyUsageRepository;
+    private final int days;
+    private final int months;
+    private final int graceMinutes;
+
+    // 🔑 key = scope id * 3 + scope code
+    private final Map<Long, PeriodSeries> series = new ConcurrentHashMap<>();
+
+    public ClosedPeriodEnergyCache(EnergyUsageRepository energyUsageRepository,
+                                   @Value("${shems.energy.closed-cache.days:62}") int days,
+                                   @Value("${shems.energy.closed-cache.months:24}") int months,
+                                   @Value("${shems.energy.closed-cache.grace-minutes:20}") int graceMinutes) {
+        this.energyUsageRepository = energyUsageRepository;
+        this.days = Math.max(1, days);
+        this.months = Math.max(1, months);
+        this.graceMinutes = Math.max(0, graceMinutes);
+    }
+
+    // =========================================================
+    // 🚀 WARM-UP / NIGHTLY LOAD
+    // =========================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+
+        LocalDate today = LocalDate.now();
+        YearMonth currentMonth = YearMonth.now();
+
+        for (String scope : new String[] { EnergyRollup.SCOPE_USER, EnergyRollup.SCOPE_SYSTEM }) {
+            loadDays(scope, today.minusDays(days), today);
+            loadMonths(scope, currentMonth.minusMonths(months), currentMonth);
+        }
+
+        System.out.println("📦 Closed-period energy cache warmed up: " + series.size() + " series");
+    }
+
+    /**
+     * Loads the day that just closed (and the month, on the 1st) for all
+     * users and the system in one grouped query each.
+     */
+    @Scheduled(cron = "${shems.energy.closed-cache.load-cron:0 30 0 * * *}")
+    public void loadPreviousPeriods() {
+
+        LocalDate today = LocalDate.now();
+        YearMonth currentMonth = YearMonth.now();
+
+        for (String scope : new String[] { EnergyRollup.SCOPE_USER, EnergyRollup.SCOPE_SYSTEM }) {
+            loadDays(scope, today.minusDays(1), today);
+            if (today.getDayOfMonth() == 1) {
+                loadMonths(scope, currentMonth.minusMonths(1), currentMonth);
+            }
+        }
+    }
+
+    // =========================================================
+    // 📊 READS
+    // =========================================================
+
+    /**
+     * Totals of the days in [from, to), in order. Closed days come from the
+     * cache; missing ones are loaded with one query and cached once closed.
+     */
+    public Map<LocalDate, Double> getDailyTotals(String scope, long scopeId, LocalDate from, LocalDate to) {
+
+        Map<LocalDate, Double> totals = new LinkedHashMap<>();
+        PeriodSeries periodSeries = seriesFor(scope, scopeId);
+        LocalDate firstMiss = null;
+        LocalDate lastMiss = null;
+
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            double value = periodSeries.getDay(day.toEpochDay());
+            if (Double.isNaN(value)) {
+                if (firstMiss == null) firstMiss = day;
+                lastMiss = day;
+            }
+            totals.put(day, value);
+        }
+
+        if (firstMiss != null) {
+            Map<LocalDate, Double> loaded = energyUsageRepository.sumByBucket(
+                    scope, scopeId, firstMiss, lastMiss.plusDays(1), EnergyRollup.DAY);
+
+            loaded.forEach((day, energy) -> {
+                if (Double.isNaN(totals.get(day))) {
+                    totals.put(day, energy);
+                    if (isClosed(day.plusDays(1))) {
+                        periodSeries.putDay(day.toEpochDay(), energy, minCachedDay());
+                    }
+                }
+            });
+        }
+
+        return totals;
+    }
+
+    /**
+     * Totals of the months in [from, to), keyed by their first day, in order.
+     */
+    public Map<LocalDate, Double> getMonthlyTotals(String scope, long scopeId, YearMonth from, YearMonth to) {
+
+        Map<LocalDate, Double> totals = new LinkedHashMap<>();
+        PeriodSeries periodSeries = seriesFor(scope, scopeId);
+        YearMonth firstMiss = null;
+        YearMonth lastMiss = null;
+
+        for (YearMonth month = from; month.isBefore(to); month = month.plusMonths(1)) {
+            double value = periodSeries.getMonth(monthIndex(month));
+            if (Double.isNaN(value)) {
+                if (firstMiss == null) firstMiss = month;
+                lastMiss = month;
+            }
+            totals.put(month.atDay(1), value);
+        }
+
+        if (firstMiss != null) {
+            Map<LocalDate, Double> loaded = energyUsageRepository.sumByBucket(
+                    scope, scopeId, firstMiss.atDay(1), lastMiss.plusMonths(1).atDay(1), EnergyRollup.MONTH);
+
+            loaded.forEach((monthStart, energy) -> {
+                if (Double.isNaN(totals.get(monthStart))) {
+                    totals.put(monthStart, energy);
+                    if (isClosed(monthStart.plusMonths(1))) {
+                        periodSeries.putMonth(monthIndex(YearMonth.from(monthStart)), energy, minCachedMonth());
+                    }
+                }
+            });
+        }
+
+        return totals;
+    }
+
+    // =========================================================
+    // ❌ INVALIDATION (DELETES ONLY)
+    // =========================================================
+
+    /**
+     * A deleted device's energy is subtracted from its owner's and the
+     * system's history, so all three are dropped and reloaded on next use.
+     */
+    public void evictDevice(long deviceId, int userId) {
+        series.remove(key(EnergyRollup.SCOPE_DEVICE, deviceId));
+        series.remove(key(EnergyRollup.SCOPE_USER, userId));
+        series.remove(key(EnergyRollup.SCOPE_SYSTEM, EnergyRollup.SYSTEM_ID));
+    }
+
+    public void evictUser(int userId) {
+        series.remove(key(EnergyRollup.SCOPE_USER, userId));
+        series.remove(key(EnergyRollup.SCOPE_SYSTEM, EnergyRollup.SYSTEM_ID));
+    }
+
+    // After a rollup rebuild any cached total may be outdated
+    public void clear() {
+        series.clear();
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private void loadDays(String scope, LocalDate from, LocalDate to) {
+
+        LocalDate lastClosed = to;
+        while (!isClosed(lastClosed)) lastClosed = lastClosed.minusDays(1);
+        LocalDate closedUntil = lastClosed;
+
+        // Closed days without a row are cached as 0.0
+        energyUsageRepository.forEachBucketTotal(scope, from, closedUntil, EnergyRollup.DAY,
+                (scopeId, day, energy) -> seriesFor(scope, scopeId).putDay(day.toEpochDay(), energy, minCachedDay()));
+
+        for (PeriodSeries periodSeries : series.values()) {
+            if (periodSeries.scope.equals(scope)) {
+                for (LocalDate day = from; day.isBefore(closedUntil); day = day.plusDays(1)) {
+                    periodSeries.putDayIfAbsent(day.toEpochDay(), minCachedDay());
+                }
+            }
+        }
+    }
+
+    private void loadMonths(String scope, YearMonth from, YearMonth to) {
+
+        YearMonth lastClosed = to;
+        while (!isClosed(lastClosed.atDay(1))) lastClosed = lastClosed.minusMonths(1);
+        YearMonth closedUntil = lastClosed;
+
+        energyUsageRepository.forEachBucketTotal(scope, from.atDay(1), closedUntil.atDay(1), EnergyRollup.MONTH,
+                (scopeId, monthStart, energy) -> seriesFor(scope, scopeId)
+                        .putMonth(monthIndex(YearMonth.from(monthStart)), energy, minCachedMonth()));
+
+        for (PeriodSeries periodSeries : series.values()) {
+            if (periodSeries.scope.equals(scope)) {
+                for (YearMonth month = from; month.isBefore(closedUntil); month = month.plusMonths(1)) {
+                    periodSeries.putMonthIfAbsent(monthIndex(month), minCachedMonth());
+                }
+            }
+        }
+    }
+
+    // 🔒 A period ending at {@code end} is closed once the grace period has passed
+    private boolean isClosed(LocalDate end) {
+        return !LocalDateTime.now().isBefore(end.atStartOfDay().plusMinutes(graceMinutes));
+    }
+
+    private long minCachedDay() {
+        return LocalDate.now().toEpochDay() - days;
+    }
+
+    private long minCachedMonth() {
+        return monthIndex(YearMonth.now()) - months;
+    }
+
+    private static long monthIndex(YearMonth month) {
+        return month.getYear() * 12L + month.getMonthValue() - 1;
+    }
+
+    private PeriodSeries seriesFor(String scope, long scopeId) {
+        return series.computeIfAbsent(key(scope, scopeId), k -> new PeriodSeries(scope, days, months));
+    }
+
+    private static long key(String scope, long scopeId) {
+        int code = switch (scope) {
+            case EnergyRollup.SCOPE_DEVICE -> 0;
+            case EnergyRollup.SCOPE_USER -> 1;
+            default -> 2;
+        };
+        return scopeId * 3 + code;
+    }
+
+    /**
+     * Day and month rings of one scope id. Slot = period index mod ring size;
+     * the tag array records which period a slot currently holds.
+     */
+    private static final class PeriodSeries {
+
+        private final String scope;
+        private final long[] dayTags;
+        private final double[] dayValues;
+        private final long[] monthTags;
+        private final double[] monthValues;
+
+        private PeriodSeries(String scope, int days, int months) {
+            this.scope = scope;
+            this.dayTags = new long[days];
+            this.dayValues = new double[days];
+            this.monthTags = new long[months];
+            this.monthValues = new double[months];
+            Arrays.fill(dayTags, EMPTY);
+            Arrays.fill(monthTags, EMPTY);
+        }
+
+        private synchronized double getDay(long day) {
+            int slot = (int) Math.floorMod(day, (long) dayTags.length);
+            return dayTags[slot] == day ? dayValues[slot] : Double.NaN;
+        }
+
+        private synchronized void putDay(long day, double energy, long minDay) {
+            if (day < minDay) return;
+            int slot = (int) Math.floorMod(day, (long) dayTags.length);
+            dayTags[slot] = day;
+            dayValues[slot] = energy;
+        }
+
+        private synchronized void putDayIfAbsent(long day, long minDay) {
+            int slot = (int) Math.floorMod(day, (long) dayTags.length);
+            if (day >= minDay && dayTags[slot] != day) {
+                dayTags[slot] = day;
+                dayValues[slot] = 0.0;
+            }
+        }
+
+        private synchronized double getMonth(long month) {
+            int slot = (int) Math.floorMod(month, (long) monthTags.length);
+            return monthTags[slot] == month ? monthValues[slot] : Double.NaN;
+        }
+
+        private synchronized void putMonth(long month, double energy, long minMonth) {
+            if (month < minMonth) return;
+            int slot = (int) Math.floorMod(month, (long) monthTags.length);
+            monthTags[slot] = month;
+            monthValues[slot] = energy;
+        }
+
+        private synchronized void putMonthIfAbsent(long month, long minMonth) {
+            int slot = (int) Math.floorMod(month, (long) monthTags.length);
+            if (month >= minMonth && monthTags[slot] != month) {
+                monthTags[slot] = month;
+                monthValues[slot] = 0.0;
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.role.implementation.energytracking.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by the energy meter after a device's ON/OFF change is recorded.
+ *
+ * Plain @EventListener methods run synchronously on the recording thread,
+ * inside its transaction. @TransactionalEventListener methods run only
+ * after that transaction commits, and not at all if it rolls back: first
+ * the device registry, then the policy engine and the device command bus.
+ * Without a transaction they run at once.
+ */
+public record DeviceStatusChangedEvent(long deviceId, int userId, boolean on,
+                                       double powerRating, String source, LocalDateTime changedAt) {
+}
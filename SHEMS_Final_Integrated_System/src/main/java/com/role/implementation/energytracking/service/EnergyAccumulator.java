@@ -0,0 +1,279 @@
+package com.role.implementation.energytracking.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.role.implementation.energytracking.model.EnergyReading;
+import com.role.implementation.energytracking.repository.EnergyUsageBatchWriter;
+
+/**
+ * In-memory per-device energy accumulator.
+ *
+ * The energy meter adds settled kWh here instead of inserting a row each time.
+ * Pending energy is written as one energy_usage row per device per window
+ * (shems.energy.accumulator.window-minutes), and also on toggle and shutdown.
+ * Rows are stamped with the window start, so windows never cross midnight.
+ *
+ * Energy from before the current window (backfilled after downtime) is
+ * added as late readings, stamped with the window it belongs to.
+ *
+ * Each device's pending energy is taken with one atomic swap, so energy added
+ * during a flush is kept for the next one. Every flush path holds the
+ * accumulator's lock, so no flush can stamp rows with a window that
+ * closeCurrentWindow is moving past.
+ */
+@Component
+public class EnergyAccumulator {
+
+    private final EnergyUsageBatchWriter batchWriter;
+    private final int windowMinutes;
+
+    // 🔢 Lock-free counters keyed by device id
+    private final Map<Long, DeviceAccumulation> pending = new ConcurrentHashMap<>();
+
+    // 👥 Ids of the devices in pending, per user
+    private final Map<Integer, Set<Long>> devicesByUser = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime currentWindowStart;
+
+    // ⏪ Backfilled energy of earlier windows, written with the next flush
+    private final List<EnergyReading> late = Collections.synchronizedList(new ArrayList<>());
+
+    public EnergyAccumulator(EnergyUsageBatchWriter batchWriter,
+                             @Value("${shems.energy.accumulator.window-minutes:15}") int windowMinutes) {
+        this.batchWriter = batchWriter;
+        this.windowMinutes = Math.max(1, Math.min(windowMinutes, 1440));
+        this.currentWindowStart = windowStartOf(LocalDateTime.now());
+    }
+
+    // =========================================================
+    // ➕ ACCUMULATE
+    // =========================================================
+
+    public void add(long deviceId, int userId, double energyKwh) {
+        pending.computeIfAbsent(deviceId, id -> {
+                   devicesByUser.computeIfAbsent(userId, user -> ConcurrentHashMap.newKeySet()).add(id);
+                   return new DeviceAccumulation(userId);
+               })
+               .add(energyKwh);
+    }
+
+    /**
+     * Energy consumed at {@code at}, before the current window (downtime
+     * backfill). Stamped with the start of the window containing {@code at}.
+     */
+    public void addLate(long deviceId, int userId, double energyKwh, LocalDateTime at) {
+        late.add(new EnergyReading(deviceId, userId, energyKwh, windowStartOf(at)));
+    }
+
+    // =========================================================
+    // 💾 FLUSH
+    // =========================================================
+
+    public LocalDateTime getCurrentWindowStart() {
+        return currentWindowStart;
+    }
+
+    /**
+     * End of the window that pending energy currently belongs to.
+     * The last window of a day always ends at midnight.
+     */
+    public LocalDateTime getCurrentWindowEnd() {
+        LocalDateTime end = currentWindowStart.plusMinutes(windowMinutes);
+        LocalDateTime midnight = currentWindowStart.toLocalDate().plusDays(1).atStartOfDay();
+        return end.isAfter(midnight) ? midnight : end;
+    }
+
+    /**
+     * Writes all pending energy and moves on to the next window.
+     */
+    public synchronized void closeCurrentWindow() {
+        flushAll();
+        currentWindowStart = getCurrentWindowEnd();
+    }
+
+    /**
+     * Writes the pending energy of a single device (e.g. when it is toggled).
+     */
+    public synchronized void flushDevice(long deviceId) {
+
+        DeviceAccumulation accumulation = pending.get(deviceId);
+        if (accumulation == null) {
+            return;
+        }
+
+        double energy = accumulation.take();
+        if (energy > 0) {
+            batchWriter.writeAll(List.of(new EnergyReading(deviceId, accumulation.userId, energy, currentWindowStart)));
+        }
+    }
+
+    /**
+     * Writes the pending energy of several devices as one batch
+     * (e.g. when a policy turns many of them off at once).
+     */
+    public synchronized void flushDevices(Collection<Long> deviceIds) {
+
+        List<EnergyReading> readings = new ArrayList<>();
+
+        for (Long deviceId : deviceIds) {
+            DeviceAccumulation accumulation = pending.get(deviceId);
+            if (accumulation == null) {
+                continue;
+            }
+
+            double energy = accumulation.take();
+            if (energy > 0) {
+                readings.add(new EnergyReading(deviceId, accumulation.userId, energy, currentWindowStart));
+            }
+        }
+
+        batchWriter.writeAll(readings);
+    }
+
+    /**
+     * Writes the pending energy of every device as one batch.
+     * Also runs on shutdown so no accumulated energy is lost.
+     */
+    @PreDestroy
+    public synchronized void flushAll() {
+
+        flushLate();
+
+        List<EnergyReading> readings = new ArrayList<>();
+
+        pending.forEach((deviceId, accumulation) -> {
+            double energy = accumulation.take();
+            if (energy > 0) {
+                readings.add(new EnergyReading(deviceId, accumulation.userId, energy, currentWindowStart));
+            }
+        });
+
+        batchWriter.writeAll(readings);
+    }
+
+    /**
+     * Writes all backfilled energy of earlier windows as one batch.
+     */
+    public void flushLate() {
+        List<EnergyReading> readings;
+        synchronized (late) {
+            readings = new ArrayList<>(late);
+            late.clear();
+        }
+        batchWriter.writeAll(readings);
+    }
+
+    /**
+     * Drops pending energy of a device that is being deleted.
+     */
+    public void discardDevice(long deviceId) {
+        DeviceAccumulation removed = pending.remove(deviceId);
+        if (removed != null) {
+            Set<Long> household = devicesByUser.get(removed.userId);
+            if (household != null) {
+                household.remove(deviceId);
+            }
+        }
+        late.removeIf(reading -> reading.getDeviceId() == deviceId);
+    }
+
+    // =========================================================
+    // 📊 PENDING (NOT YET FLUSHED) ENERGY
+    // =========================================================
+
+    public double getPendingEnergyForDevice(long deviceId) {
+        DeviceAccumulation accumulation = pending.get(deviceId);
+        return accumulation != null ? accumulation.get() : 0.0;
+    }
+
+    public double getPendingEnergyForUser(int userId) {
+
+        Set<Long> household = devicesByUser.get(userId);
+        if (household == null) {
+            return 0.0;
+        }
+
+        double total = 0.0;
+        for (Long deviceId : household) {
+            DeviceAccumulation accumulation = pending.get(deviceId);
+            if (accumulation != null) {
+                total += accumulation.get();
+            }
+        }
+        return total;
+    }
+
+    public double getPendingEnergyTotal() {
+        double total = 0.0;
+        for (DeviceAccumulation accumulation : pending.values()) {
+            total += accumulation.get();
+        }
+        return total;
+    }
+
+    /**
+     * Visits every device with pending energy (bulk snapshots).
+     */
+    public void forEachPending(PendingEnergyVisitor visitor) {
+        pending.forEach((deviceId, accumulation) -> {
+            double energy = accumulation.get();
+            if (energy > 0) {
+                visitor.visit(deviceId, accumulation.userId, energy);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    public interface PendingEnergyVisitor {
+        void visit(long deviceId, int userId, double energyKwh);
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private LocalDateTime windowStartOf(LocalDateTime time) {
+        int minuteOfDay = time.getHour() * 60 + time.getMinute();
+        int windowStartMinute = minuteOfDay - (minuteOfDay % windowMinutes);
+        return time.toLocalDate().atStartOfDay().plusMinutes(windowStartMinute);
+    }
+
+    private static final class DeviceAccumulation {
+
+        private final int userId;
+
+        // ⚡ Pending kWh, stored as the bits of a double
+        private final AtomicLong energyBits = new AtomicLong();
+
+        private DeviceAccumulation(int userId) {
+            this.userId = userId;
+        }
+
+        private void add(double energyKwh) {
+            energyBits.getAndUpdate(bits ->
+                    Double.doubleToRawLongBits(Double.longBitsToDouble(bits) + energyKwh));
+        }
+
+        private double get() {
+            return Double.longBitsToDouble(energyBits.get());
+        }
+
+        // Returns the pending energy and resets it to zero in one step
+        private double take() {
+            return Double.longBitsToDouble(energyBits.getAndSet(0L));
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.role.implementation.energytracking.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.role.implementation.energytracking.repository.EnergyReadingStreamer;
+
+/**
+ * In-process store of the last 7 days of energy per device, at minute resolution.
+ *
+ * Each device has one ring buffer of 10,080 primitive doubles (one slot per
+ * minute), so memory per device is fixed at about 80 KB. The meter feeds it
+ * with every settled interval, split exactly across minutes. At startup it
+ * is warmed from energy_usage; those rows are window totals, so their energy
+ * is spread evenly over the window.
+ *
+ * Ranges that start before the covered period return empty, and callers
+ * fall back to the database.
+ *
+ * The store is opt-in (shems.energy.hotstore.enabled) and holds at most
+ * shems.energy.hotstore.max-devices series. Devices beyond the cap are not
+ * stored, and sums over them (or over their user) fall back to the database.
+ */
+@Component
+public class EnergyHotStore {
+
+    public static final int SLOTS = 7 * 24 * 60;
+    public static final long BYTES_PER_DEVICE = SLOTS * (long) Double.BYTES;
+
+    private final EnergyReadingStreamer readingStreamer;
+    private final boolean enabled;
+    private final int maxDevices;
+    private final int windowMinutes;
+
+    private final Map<Long, DeviceSeries> series = new ConcurrentHashMap<>();
+
+    // 👥 Device ids per user, stored or not, so user sums never scan the fleet
+    private final Map<Integer, Set<Long>> devicesByUser = new ConcurrentHashMap<>();
+
+    // 🚫 Devices turned away by the cap (device id → user id)
+    private final Map<Long, Integer> overflow = new ConcurrentHashMap<>();
+
+    // 🕒 First minute the store holds complete data for (MAX until warmed up)
+    private volatile long coveredFromMinute = Long.MAX_VALUE;
+
+    public EnergyHotStore(EnergyReadingStreamer readingStreamer,
+                          @Value("${shems.energy.hotstore.enabled:false}") boolean enabled,
+                          @Value("${shems.energy.hotstore.max-devices:1000}") int maxDevices,
+                          @Value("${shems.energy.accumulator.window-minutes:15}") int windowMinutes) {
+        this.readingStreamer = readingStreamer;
+        this.enabled = enabled;
+        this.maxDevices = Math.max(0, maxDevices);
+        this.windowMinutes = Math.max(1, Math.min(windowMinutes, 1440));
+    }
+
+    // =========================================================
+    // 🚀 WARM-UP
+    // =========================================================
+
+    /**
+     * Loads the last 7 days of readings. Runs before the meter opens any
+     * interval, so everything fed afterwards is new energy.
+     */
+    @PostConstruct
+    public void warmUp() {
+
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        long nowMinute = minuteOf(now);
+        LocalDateTime start = timeOf(nowMinute - SLOTS + 1);
+
+        readingStreamer.streamReadingsSince(start, reading -> {
+
+            LocalDateTime from = reading.getTimestamp();
+            LocalDateTime midnight = from.toLocalDate().plusDays(1).atStartOfDay();
+            LocalDateTime to = min(min(from.plusMinutes(windowMinutes), midnight), now);
+
+            if (!to.isAfter(from)) {
+                to = from.plusMinutes(1);
+            }
+
+            double hours = Duration.between(from, to).toMillis() / 3_600_000.0;
+            addInterval(reading.getDeviceId(), reading.getUserId(),
+                        reading.getEnergyConsumed() / hours, from, to);
+        });
+
+        coveredFromMinute = nowMinute - SLOTS + 1;
+
+        System.out.println("🔥 Energy hot store warmed up: " + series.size() + " devices, "
+                + (getMemoryBytes() / 1024) + " KB (" + (BYTES_PER_DEVICE / 1024) + " KB per device), "
+                + overflow.size() + " over the cap of " + maxDevices);
+    }
+
+    // =========================================================
+    // ➕ FEED
+    // =========================================================
+
+    /**
+     * Adds energy consumed at a constant power over [from, to), split across
+     * the minute slots it covers.
+     */
+    public void addInterval(long deviceId, int userId, double powerInKW, LocalDateTime from, LocalDateTime to) {
+
+        if (!enabled || !to.isAfter(from)) {
+            return;
+        }
+
+        // Only the last SLOTS minutes of a very long interval can be stored
+        LocalDateTime oldestStorable = timeOf(minuteOf(to) - SLOTS + 1);
+        if (from.isBefore(oldestStorable)) {
+            from = oldestStorable;
+        }
+
+        DeviceSeries deviceSeries = series.get(deviceId);
+        if (deviceSeries == null) {
+            deviceSeries = admit(deviceId, userId);
+            if (deviceSeries == null) {
+                return;
+            }
+        }
+
+        synchronized (deviceSeries) {
+            LocalDateTime segmentStart = from;
+            while (segmentStart.isBefore(to)) {
+                long minute = minuteOf(segmentStart);
+                LocalDateTime segmentEnd = min(timeOf(minute + 1), to);
+
+                long millis = Duration.between(segmentStart, segmentEnd).toMillis();
+                deviceSeries.add(minute, powerInKW * millis / 3_600_000.0);
+
+                segmentStart = segmentEnd;
+            }
+        }
+    }
+
+    public synchronized void discardDevice(long deviceId) {
+
+        DeviceSeries removed = series.remove(deviceId);
+        Integer overflowUser = overflow.remove(deviceId);
+
+        Integer userId = removed != null ? Integer.valueOf(removed.userId) : overflowUser;
+        if (userId != null) {
+            Set<Long> household = devicesByUser.get(userId);
+            if (household != null) {
+                household.remove(deviceId);
+            }
+        }
+    }
+
+    // Creates the device's series, or records it as overflow once the cap is reached
+    private synchronized DeviceSeries admit(long deviceId, int userId) {
+
+        DeviceSeries existing = series.get(deviceId);
+        if (existing != null || overflow.containsKey(deviceId)) {
+            return existing;
+        }
+
+        devicesByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(deviceId);
+
+        if (series.size() >= maxDevices) {
+            if (overflow.isEmpty()) {
+                System.out.println("⚠️ Energy hot store is full (" + maxDevices
+                        + " devices), further devices are read from the database");
+            }
+            overflow.put(deviceId, userId);
+            return null;
+        }
+
+        DeviceSeries created = new DeviceSeries(userId);
+        series.put(deviceId, created);
+        return created;
+    }
+
+    // =========================================================
+    // 📊 RANGE SUMS
+    // =========================================================
+
+    /**
+     * Energy of a device over [from, to), by whole minutes (a partial minute
+     * at {@code to} is included). Empty if the range is not covered.
+     */
+    public OptionalDouble sumForDevice(long deviceId, LocalDateTime from, LocalDateTime to) {
+
+        if (!covers(from) || overflow.containsKey(deviceId)) {
+            return OptionalDouble.empty();
+        }
+
+        DeviceSeries deviceSeries = series.get(deviceId);
+        if (deviceSeries == null) {
+            return OptionalDouble.of(0.0);
+        }
+
+        synchronized (deviceSeries) {
+            return OptionalDouble.of(deviceSeries.sum(minuteOf(from), ceilMinuteOf(to)));
+        }
+    }
+
+    /**
+     * Energy of all of a user's devices over [from, to). Empty if not covered.
+     */
+    public OptionalDouble sumForUser(int userId, LocalDateTime from, LocalDateTime to) {
+
+        if (!covers(from)) {
+            return OptionalDouble.empty();
+        }
+
+        Set<Long> household = devicesByUser.get(userId);
+        if (household == null) {
+            return OptionalDouble.of(0.0);
+        }
+
+        long fromMinute = minuteOf(from);
+        long toMinute = ceilMinuteOf(to);
+        double total = 0.0;
+
+        for (Long deviceId : household) {
+            if (overflow.containsKey(deviceId)) {
+                return OptionalDouble.empty();
+            }
+            DeviceSeries deviceSeries = series.get(deviceId);
+            if (deviceSeries != null) {
+                synchronized (deviceSeries) {
+                    total += deviceSeries.sum(fromMinute, toMinute);
+                }
+            }
+        }
+
+        return OptionalDouble.of(total);
+    }
+
+    /**
+     * True if [from, now] lies within the last 7 days and the store is warm.
+     */
+    public boolean covers(LocalDateTime from) {
+        long fromMinute = minuteOf(from);
+        return enabled
+                && fromMinute >= coveredFromMinute
+                && fromMinute > minuteOf(LocalDateTime.now()) - SLOTS;
+    }
+
+    // =========================================================
+    // 📏 MEMORY REPORTING
+    // =========================================================
+
+    public int getDeviceCount() {
+        return series.size();
+    }
+
+    public long getMemoryBytes() {
+        return series.size() * BYTES_PER_DEVICE;
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private static long minuteOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static long ceilMinuteOf(LocalDateTime time) {
+        long minute = minuteOf(time);
+        return time.equals(timeOf(minute)) ? minute : minute + 1;
+    }
+
+    private static LocalDateTime timeOf(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    /**
+     * One device's ring buffer. Slot (minute mod SLOTS) holds that minute's
+     * energy; slots are cleared as the newest minute moves forward.
+     * Callers synchronize on the instance.
+     */
+    private static final class DeviceSeries {
+
+        private final int userId;
+        private final double[] slots = new double[SLOTS];
+        private long newestMinute = Long.MIN_VALUE;
+
+        private DeviceSeries(int userId) {
+            this.userId = userId;
+        }
+
+        private void add(long minute, double energy) {
+
+            if (newestMinute == Long.MIN_VALUE) {
+                newestMinute = minute;
+            } else if (minute > newestMinute) {
+                // Clear the slots being reused for the new minutes
+                long clearFrom = Math.max(newestMinute + 1, minute - SLOTS + 1);
+                for (long m = clearFrom; m <= minute; m++) {
+                    slots[slot(m)] = 0.0;
+                }
+                newestMinute = minute;
+            } else if (minute <= newestMinute - SLOTS) {
+                return;
+            }
+
+            slots[slot(minute)] += energy;
+        }
+
+        // 🔢 Sum of minutes in [fromMinute, toMinute)
+        private double sum(long fromMinute, long toMinute) {
+
+            if (newestMinute == Long.MIN_VALUE) {
+                return 0.0;
+            }
+
+            long lo = Math.max(fromMinute, newestMinute - SLOTS + 1);
+            long hi = Math.min(toMinute - 1, newestMinute);
+
+            double total = 0.0;
+            for (long m = lo; m <= hi; m++) {
+                total += slots[slot(m)];
+            }
+            return total;
+        }
+
+        private static int slot(long minute) {
+            return (int) Math.floorMod(minute, (long) SLOTS);
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package com.role.implementation.energytracking.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.role.implementation.cache.EnergyCacheKeys;
+import com.role.implementation.devicemanagement.service.DeviceRegistry;
+import com.role.implementation.devicemanagement.service.DeviceRegistry.DeviceState;
+import com.role.implementation.energytracking.model.DeviceStateTransition;
+import com.role.implementation.energytracking.model.MeterHeartbeat;
+import com.role.implementation.energytracking.repository.DeviceStateTransitionRepository;
+import com.role.implementation.energytracking.repository.DeviceStateTransitionWriter;
+import com.role.implementation.energytracking.repository.MeterHeartbeatRepository;
+
+/**
+ * Event-driven energy metering.
+ *
+ * Every ON/OFF change is written to the state-transition log. While a device
+ * is ON it has an open interval here; energy is integrated exactly over that
+ * interval when it closes (toggle OFF or window boundary) and lazily at query
+ * time for the part that is still open.
+ *
+ * A heartbeat row records how far energy has been written. After a restart,
+ * devices that stayed ON are metered from there, so the downtime is
+ * backfilled per device (see backfill) instead of being lost.
+ */
+@Service
+public class EnergyMeteringService {
+
+    public static final String SOURCE_USER = "USER";
+    public static final String SOURCE_ADMIN = "ADMIN";
+    public static final String SOURCE_SCHEDULE = "SCHEDULE";
+    public static final String SOURCE_POLICY = "POLICY";
+    public static final String SOURCE_SCENE = "SCENE";
+
+    // ⏱ After-commit order: deleted devices are dropped before transitions are applied
+    private static final int DISCARD_ORDER = Ordered.HIGHEST_PRECEDENCE;
+    private static final int APPLY_ORDER = Ordered.HIGHEST_PRECEDENCE + 1;
+
+    private final DeviceRegistry deviceRegistry;
+    private final DeviceStateTransitionRepository transitionRepository;
+    private final DeviceStateTransitionWriter transitionWriter;
+    private final EnergyAccumulator energyAccumulator;
+    private final EnergyHotStore energyHotStore;
+    private final HouseholdLoadTracker loadTracker;
+    private final EnergyCacheKeys energyCacheKeys;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterHeartbeatRepository heartbeatRepository;
+    private final TransactionTemplate afterCommitTransaction;
+
+    // ⏪ Heartbeat found at startup (null on first start)
+    private volatile LocalDateTime startupHeartbeat;
+
+    // 🔌 Devices currently ON, keyed by device id
+    private final Map<Long, OpenInterval> openIntervals = new ConcurrentHashMap<>();
+
+    // 👥 Ids of the devices with an open interval, per user
+    private final Map<Integer, Set<Long>> openByUser = new ConcurrentHashMap<>();
+
+    public EnergyMeteringService(DeviceRegistry deviceRegistry,
+                                 DeviceStateTransitionRepository transitionRepository,
+                                 DeviceStateTransitionWriter transitionWriter,
+                                 EnergyAccumulator energyAccumulator,
+                                 EnergyHotStore energyHotStore,
+                                 HouseholdLoadTracker loadTracker,
+                                 EnergyCacheKeys energyCacheKeys,
+                                 ApplicationEventPublisher eventPublisher,
+                                 MeterHeartbeatRepository heartbeatRepository,
+                                 TransactionTemplate transactionTemplate) {
+        this.deviceRegistry = deviceRegistry;
+        this.transitionRepository = transitionRepository;
+        this.transitionWriter = transitionWriter;
+        this.energyAccumulator = energyAccumulator;
+        this.energyHotStore = energyHotStore;
+        this.loadTracker = loadTracker;
+        this.energyCacheKeys = energyCacheKeys;
+        this.eventPublisher = eventPublisher;
+        this.heartbeatRepository = heartbeatRepository;
+
+        this.afterCommitTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.afterCommitTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // =========================================================
+    // 🚀 STARTUP
+    // =========================================================
+
+    /**
+     * Opens an interval for every device that is ON when the application starts,
+     * as listed by the device registry (the meter runs no fleet query).
+     *
+     * Intervals start at the last heartbeat (or the device's last change, if
+     * later), so the downtime is included; runs before any other startup
+     * listener, in particular before the schedule reconciler.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void loadOpenIntervals() {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        startupHeartbeat = heartbeatRepository.findById(MeterHeartbeat.SINGLETON_ID)
+                .map(MeterHeartbeat::getSettledUntil)
+                .filter(settledUntil -> settledUntil.isBefore(now))
+                .orElse(null);
+
+        // Devices changed after the heartbeat had their energy written up to that change
+        Map<Long, LocalDateTime> lastChanges = new HashMap<>();
+        if (startupHeartbeat != null) {
+            for (Object[] row : transitionRepository.findLastChangeSince(startupHeartbeat)) {
+                lastChanges.put(((Number) row[0]).longValue(), (LocalDateTime) row[1]);
+            }
+        }
+
+        for (DeviceState device : deviceRegistry.getActiveDevices()) {
+
+            LocalDateTime onSince = now;
+            if (startupHeartbeat != null) {
+                LocalDateTime lastChange = lastChanges.getOrDefault(device.id(), startupHeartbeat);
+                onSince = lastChange.isBefore(now) ? lastChange : now;
+            }
+
+            openInterval(device.id(), new OpenInterval(device.userId(), device.powerRating(), onSince));
+            loadTracker.deviceOn(device.id(), device.userId(), device.powerRating());
+        }
+    }
+
+    // =========================================================
+    // 🔁 STATE TRANSITIONS
+    // =========================================================
+
+    /**
+     * Records transitions as one JDBC batch of log rows. Call after the new
+     * statuses have been saved, in the same transaction.
+     *
+     * Open intervals, household loads and the energy of devices that went
+     * OFF are only updated once that transaction has committed (see
+     * afterCommit), so a rollback leaves the in-memory meter as it was.
+     */
+    public void recordTransitions(List<DeviceStateTransition> transitions) {
+
+        if (transitions.isEmpty()) {
+            return;
+        }
+
+        transitionWriter.insertAll(transitions);
+        afterCommit(APPLY_ORDER, () -> applyTransitions(transitions));
+
+        // Listeners that touch in-memory state run after commit too
+        for (DeviceStateTransition transition : transitions) {
+            eventPublisher.publishEvent(new DeviceStatusChangedEvent(transition.getDeviceId(),
+                    transition.getUserId(), transition.isStatus(), transition.getPowerRating(),
+                    transition.getSource(), transition.getChangedAt()));
+        }
+    }
+
+    // One energy batch for every device that went OFF
+    private void applyTransitions(List<DeviceStateTransition> transitions) {
+
+        Set<Integer> changedUsers = new HashSet<>();
+        List<Long> turnedOff = new ArrayList<>();
+
+        for (DeviceStateTransition transition : transitions) {
+            long deviceId = transition.getDeviceId();
+            int userId = transition.getUserId();
+            changedUsers.add(userId);
+
+            if (transition.isStatus()) {
+                openInterval(deviceId, new OpenInterval(userId, transition.getPowerRating(), transition.getChangedAt()));
+                loadTracker.deviceOn(deviceId, userId, transition.getPowerRating());
+                continue;
+            }
+
+            loadTracker.deviceOff(deviceId);
+
+            OpenInterval interval = closeInterval(deviceId);
+            if (interval != null) {
+                interval.settle(deviceId, transition.getChangedAt(), energyAccumulator, energyHotStore);
+            }
+            turnedOff.add(deviceId);
+        }
+
+        // 🔑 Cached dashboards of these users (and system-wide views) go stale
+        changedUsers.forEach(energyCacheKeys::userChanged);
+        energyAccumulator.flushDevices(turnedOff);
+    }
+
+    /**
+     * Integrates every open interval up to the given time (a window boundary),
+     * so energy lands in the window it was consumed in.
+     */
+    public void settleOpenIntervals(LocalDateTime upTo) {
+        openIntervals.forEach((deviceId, interval) ->
+                interval.settle(deviceId, upTo, energyAccumulator, energyHotStore));
+    }
+
+    /**
+     * Settles every open interval on shutdown; the accumulator (destroyed
+     * after this bean) then writes the result.
+     */
+    @PreDestroy
+    public void settleOnShutdown() {
+        LocalDateTime now = LocalDateTime.now();
+        settleOpenIntervals(now);
+        recordHeartbeat(now);
+    }
+
+    // =========================================================
+    // ⏪ HEARTBEAT / DOWNTIME BACKFILL
+    // =========================================================
+
+    /**
+     * Last heartbeat found at startup: energy was written up to this point
+     * before the application went down. Null on a first start.
+     */
+    public LocalDateTime getStartupHeartbeat() {
+        return startupHeartbeat;
+    }
+
+    /**
+     * Records that all energy up to {@code settledUntil} has been written.
+     */
+    public void recordHeartbeat(LocalDateTime settledUntil) {
+        heartbeatRepository.save(new MeterHeartbeat(settledUntil));
+    }
+
+    /**
+     * Settles every open interval up to {@code upTo} and writes the part that
+     * falls before the current window (downtime) as one batch, at most one
+     * reading per device per day. Cost depends on the number of ON devices.
+     * Inside a transaction this runs after commit, after the transitions
+     * recorded before it.
+     */
+    public void backfill(LocalDateTime upTo) {
+        afterCommit(APPLY_ORDER, () -> {
+            settleOpenIntervals(upTo);
+            energyAccumulator.flushLate();
+        });
+    }
+
+    /**
+     * Forgets all metering state of a device that is being deleted. Its
+     * transitions are deleted in the caller's transaction; the in-memory
+     * state is dropped once that commits, before any transition of the
+     * same transaction is applied (so a final OFF writes no energy).
+     */
+    public void discardDevice(long deviceId) {
+        transitionRepository.deleteByDeviceId(deviceId);
+        afterCommit(DISCARD_ORDER, () -> {
+            closeInterval(deviceId);
+            loadTracker.deviceOff(deviceId);
+            energyAccumulator.discardDevice(deviceId);
+            energyHotStore.discardDevice(deviceId);
+        });
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    /**
+     * Runs the action once the current transaction has committed (at once
+     * when there is none). Discards run first, then transitions and backfills
+     * in registration order, before the after-commit event listeners of
+     * default order; their energy writes get a transaction of their own, as
+     * the finished one can no longer commit.
+     */
+    private void afterCommit(int order, Runnable action) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public int getOrder() {
+                return order;
+            }
+
+            @Override
+            public void afterCommit() {
+                afterCommitTransaction.executeWithoutResult(status -> action.run());
+            }
+        });
+    }
+
+    // =========================================================
+    // 📊 ENERGY NOT YET IN energy_usage
+    // =========================================================
+
+    public double getPendingEnergyForDevice(long deviceId) {
+        OpenInterval interval = openIntervals.get(deviceId);
+        double unsettled = interval != null ? interval.unsettledEnergy(LocalDateTime.now()) : 0.0;
+        return energyAccumulator.getPendingEnergyForDevice(deviceId) + unsettled;
+    }
+
+    public double getPendingEnergyForUser(int userId) {
+        return energyAccumulator.getPendingEnergyForUser(userId) + getUnsettledEnergyForUser(userId);
+    }
+
+    /**
+     * Visits the pending energy of every device: accumulated but not yet
+     * written, plus the still-open part of its interval. A device can be
+     * visited twice (once for each part).
+     */
+    public void forEachPending(EnergyAccumulator.PendingEnergyVisitor visitor) {
+
+        energyAccumulator.forEachPending(visitor);
+
+        LocalDateTime now = LocalDateTime.now();
+        openIntervals.forEach((deviceId, interval) -> {
+            double unsettled = interval.unsettledEnergy(now);
+            if (unsettled > 0) {
+                visitor.visit(deviceId, interval.userId, unsettled);
+            }
+        });
+    }
+
+    public double getPendingEnergyTotal() {
+        LocalDateTime now = LocalDateTime.now();
+        double unsettled = 0.0;
+        for (OpenInterval interval : openIntervals.values()) {
+            unsettled += interval.unsettledEnergy(now);
+        }
+        return energyAccumulator.getPendingEnergyTotal() + unsettled;
+    }
+
+    // =========================================================
+    // 📊 ENERGY NOT YET IN THE HOT STORE (OPEN INTERVALS ONLY)
+    // =========================================================
+
+    public double getUnsettledEnergyForDevice(long deviceId) {
+        OpenInterval interval = openIntervals.get(deviceId);
+        return interval != null ? interval.unsettledEnergy(LocalDateTime.now()) : 0.0;
+    }
+
+    public double getUnsettledEnergyForUser(int userId) {
+
+        Set<Long> household = openByUser.get(userId);
+        if (household == null) {
+            return 0.0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        double unsettled = 0.0;
+        for (Long deviceId : household) {
+            OpenInterval interval = openIntervals.get(deviceId);
+            if (interval != null) {
+                unsettled += interval.unsettledEnergy(now);
+            }
+        }
+        return unsettled;
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    // Opens an interval unless the device already has one
+    private void openInterval(long deviceId, OpenInterval interval) {
+        if (openIntervals.putIfAbsent(deviceId, interval) == null) {
+            openByUser.computeIfAbsent(interval.userId, id -> ConcurrentHashMap.newKeySet()).add(deviceId);
+        }
+    }
+
+    private OpenInterval closeInterval(long deviceId) {
+        OpenInterval interval = openIntervals.remove(deviceId);
+        if (interval != null) {
+            Set<Long> household = openByUser.get(interval.userId);
+            if (household != null) {
+                household.remove(deviceId);
+            }
+        }
+        return interval;
+    }
+
+    private static final class OpenInterval {
+
+        private final int userId;
+        private final double powerInKW;
+        private LocalDateTime settledUntil;
+
+        private OpenInterval(int userId, double powerRating, LocalDateTime onSince) {
+            this.userId = userId;
+            this.powerInKW = powerRating / 1000.0;
+            this.settledUntil = onSince;
+        }
+
+        // ⚡ Energy (kWh) = Power (kW) × Time (hours)
+        private synchronized double unsettledEnergy(LocalDateTime now) {
+            long millis = Duration.between(settledUntil, now).toMillis();
+            return millis > 0 ? powerInKW * millis / 3_600_000.0 : 0.0;
+        }
+
+        private synchronized void settle(long deviceId, LocalDateTime upTo,
+                                         EnergyAccumulator accumulator, EnergyHotStore hotStore) {
+
+            if (!upTo.isAfter(settledUntil)) {
+                return;
+            }
+
+            hotStore.addInterval(deviceId, userId, powerInKW, settledUntil, upTo);
+
+            // ⏪ Part before the current window (downtime): one late reading per day
+            LocalDateTime windowStart = accumulator.getCurrentWindowStart();
+            LocalDateTime from = settledUntil;
+            while (from.isBefore(windowStart) && from.isBefore(upTo)) {
+                LocalDateTime nextDay = from.toLocalDate().plusDays(1).atStartOfDay();
+                LocalDateTime to = upTo.isBefore(windowStart) ? upTo : windowStart;
+                if (nextDay.isBefore(to)) {
+                    to = nextDay;
+                }
+                accumulator.addLate(deviceId, userId, energyBetween(from, to), from);
+                from = to;
+            }
+
+            if (upTo.isAfter(from)) {
+                accumulator.add(deviceId, userId, energyBetween(from, upTo));
+            }
+            settledUntil = upTo;
+        }
+
+        private double energyBetween(LocalDateTime from, LocalDateTime to) {
+            return powerInKW * Duration.between(from, to).toMillis() / 3_600_000.0;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.role.implementation.energytracking.service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.role.implementation.energytracking.repository.EnergyRollupWriter;
+import com.role.implementation.energytracking.repository.EnergyUsagePartitionManager;
+import com.role.implementation.energytracking.repository.EnergyUsageRepository;
+
+/**
+ * Retention policy for stored energy data.
+ *
+ * Storage tiers:
+ *  - raw energy_usage rows: kept for shems.energy.retention.raw-days
+ *    (0, the default, keeps them forever)
+ *  - hourly device rollups (the downsampled copy): kept for hourly-days
+ *  - daily and monthly rollups: kept forever
+ *
+ * Raw data is always expired in whole months, so any month that still has
+ * raw rows is complete and can be rebuilt into rollups. Expiry drops whole
+ * partitions when energy_usage is partitioned, and otherwise falls back to
+ * chunked DELETEs.
+ */
+@Service
+public class EnergyRetentionService {
+
+    private final EnergyUsagePartitionManager partitionManager;
+    private final EnergyRollupWriter rollupWriter;
+    private final EnergyUsageRepository energyUsageRepository;
+    private final int rawDays;
+    private final int hourlyDays;
+    private final boolean partitioningEnabled;
+    private final int monthsAhead;
+    private final int deleteChunkSize;
+
+    public EnergyRetentionService(EnergyUsagePartitionManager partitionManager,
+                                  EnergyRollupWriter rollupWriter,
+                                  EnergyUsageRepository energyUsageRepository,
+                                  @Value("${shems.energy.retention.raw-days:0}") int rawDays,
+                                  @Value("${shems.energy.retention.hourly-days:400}") int hourlyDays,
+                                  @Value("${shems.energy.partitioning.enabled:false}") boolean partitioningEnabled,
+                                  @Value("${shems.energy.partitioning.months-ahead:2}") int monthsAhead,
+                                  @Value("${shems.energy.retention.delete-chunk-size:10000}") int deleteChunkSize) {
+        this.partitionManager = partitionManager;
+        this.rollupWriter = rollupWriter;
+        this.energyUsageRepository = energyUsageRepository;
+        this.rawDays = rawDays;
+        this.hourlyDays = hourlyDays;
+        this.partitioningEnabled = partitioningEnabled;
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.deleteChunkSize = Math.max(1, deleteChunkSize);
+    }
+
+    // =========================================================
+    // 🗂 PARTITION SETUP
+    // =========================================================
+
+    /**
+     * Partitions energy_usage by month on first start with partitioning
+     * enabled, and keeps empty partitions ready for the next months.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preparePartitions() {
+
+        if (!partitioningEnabled) {
+            return;
+        }
+
+        YearMonth last = YearMonth.now().plusMonths(monthsAhead);
+
+        if (!partitionManager.isPartitioned()) {
+            LocalDateTime earliest = energyUsageRepository.findEarliestTimestamp();
+            YearMonth first = earliest != null ? YearMonth.from(earliest) : YearMonth.now();
+
+            partitionManager.convertToMonthlyPartitions(first, last);
+            System.out.println("🗂 energy_usage partitioned by month: " + first + " → " + last);
+            return;
+        }
+
+        List<String> added = partitionManager.addPartitionsUpTo(last);
+        if (!added.isEmpty()) {
+            System.out.println("🗂 energy_usage partitions added: " + added);
+        }
+    }
+
+    // =========================================================
+    // 🧹 RETENTION
+    // =========================================================
+
+    @Scheduled(cron = "${shems.energy.retention.cron:0 30 2 * * *}")
+    public void applyRetention() {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        if (rawDays > 0) {
+            // Only months that ended before the cutoff are expired
+            YearMonth oldestKept = YearMonth.from(now.minusDays(rawDays));
+
+            if (partitioningEnabled) {
+                preparePartitions();
+                List<String> dropped = partitionManager.dropPartitionsBefore(oldestKept);
+                if (!dropped.isEmpty()) {
+                    System.out.println("🧹 energy_usage partitions dropped: " + dropped);
+                }
+            } else {
+                int deleted = partitionManager.deleteReadingsBefore(
+                        oldestKept.atDay(1).atStartOfDay(), deleteChunkSize);
+                if (deleted > 0) {
+                    System.out.println("🧹 energy_usage rows expired: " + deleted);
+                }
+            }
+        }
+
+        if (hourlyDays > 0) {
+            int deleted = rollupWriter.deleteHourlyBefore(
+                    now.toLocalDate().minusDays(hourlyDays).atStartOfDay(), deleteChunkSize);
+            if (deleted > 0) {
+                System.out.println("🧹 hourly energy rollups expired: " + deleted);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.role.implementation.energytracking.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.role.implementation.energytracking.repository.EnergyRollupRepository;
+import com.role.implementation.energytracking.repository.EnergyRollupWriter;
+import com.role.implementation.energytracking.repository.EnergyUsageRepository;
+
+/**
+ * Rebuild / backfill job for the energy rollup tables.
+ * Normal updates happen incrementally in the ingest path.
+ */
+@Service
+public class EnergyRollupService {
+
+    private final EnergyRollupRepository rollupRepository;
+    private final EnergyRollupWriter rollupWriter;
+    private final EnergyUsageRepository energyUsageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ClosedPeriodEnergyCache closedPeriodCache;
+    private final boolean backfillOnStartup;
+
+    public EnergyRollupService(EnergyRollupRepository rollupRepository,
+                               EnergyRollupWriter rollupWriter,
+                               EnergyUsageRepository energyUsageRepository,
+                               TransactionTemplate transactionTemplate,
+                               ClosedPeriodEnergyCache closedPeriodCache,
+                               @Value("${shems.energy.rollup.backfill-on-startup:true}") boolean backfillOnStartup) {
+        this.rollupRepository = rollupRepository;
+        this.rollupWriter = rollupWriter;
+        this.energyUsageRepository = energyUsageRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.closedPeriodCache = closedPeriodCache;
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    /**
+     * Fills the rollups from existing raw readings the first time the
+     * application starts with an empty rollup table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+
+        if (!backfillOnStartup || rollupRepository.count() > 0) {
+            return;
+        }
+
+        LocalDateTime earliest = energyUsageRepository.findEarliestTimestamp();
+        if (earliest == null) {
+            return;
+        }
+
+        rebuild(YearMonth.from(earliest), YearMonth.now());
+    }
+
+    /**
+     * Rebuilds the rollups of every month in [from, to] from raw readings,
+     * one transaction per month. Months whose raw readings have already
+     * expired are skipped, so their rollups are kept.
+     */
+    public void rebuild(YearMonth from, YearMonth to) {
+
+        LocalDateTime earliest = energyUsageRepository.findEarliestTimestamp();
+        if (earliest == null) {
+            return;
+        }
+        if (from.isBefore(YearMonth.from(earliest))) {
+            from = YearMonth.from(earliest);
+        }
+
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+
+            LocalDate first = month.atDay(1);
+            LocalDateTime start = first.atStartOfDay();
+            LocalDateTime end = first.plusMonths(1).atStartOfDay();
+
+            transactionTemplate.executeWithoutResult(status -> rollupWriter.rebuild(start, end));
+        }
+
+        closedPeriodCache.clear();
+    }
+}
@@ -7,11 +7,13 @@ import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalDouble;
 import java.util.stream.Stream;
 
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import com.lowagie.text.Document;
@@ -23,7 +25,10 @@ import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
 
+import com.role.implementation.cache.CacheConfig;
 import com.role.implementation.devicemanagement.model.Device;
+import com.role.implementation.energytracking.model.EnergyRollup;
+import com.role.implementation.energytracking.repository.EnergyRollupRepository;
 import com.role.implementation.energytracking.repository.EnergyUsageRepository;
 import com.role.implementation.model.User;
 
@@ -33,17 +38,40 @@ public class EnergyService {
     @Autowired
     private EnergyUsageRepository energyUsageRepository;
 
+    @Autowired
+    private EnergyMeteringService energyMeteringService;
+
+    @Autowired
+    private EnergyRollupRepository rollupRepository;
+
+    @Autowired
+    private EnergyHotStore energyHotStore;
+
     private static final double RATE_PER_UNIT = 6.0; // ₹6 per kWh
 
     // 🔹 Energy today per device
+    @Cacheable(cacheNames = CacheConfig.USER_ENERGY,
+               key = "'device:' + #device.id + ':' + @energyCacheKeys.user(#device.user.id)")
     public double getTodayEnergyForDevice(Device device) {
-        LocalDateTime start = LocalDate.now().atStartOfDay();
+        return getEnergyForDeviceSince(device, LocalDate.now().atStartOfDay());
+    }
+
+    // 🔹 Energy of a device from the given time until now
+    public double getEnergyForDeviceSince(Device device, LocalDateTime start) {
         LocalDateTime end = LocalDateTime.now();
 
+        // 🔥 Last 7 days are answered from memory
+        OptionalDouble hot = energyHotStore.sumForDevice(device.getId(), start, end);
+        if (hot.isPresent()) {
+            return hot.getAsDouble() + energyMeteringService.getUnsettledEnergyForDevice(device.getId());
+        }
+
         Double total = energyUsageRepository
                 .getTotalEnergyForDeviceBetween(device, start, end);
 
-        return total != null ? total : 0.0;
+        // ➕ Include energy not yet written to energy_usage
+        return (total != null ? total : 0.0)
+                + energyMeteringService.getPendingEnergyForDevice(device.getId());
     }
 
     // 🔹 Energy today for all devices of a user
@@ -52,12 +80,23 @@ public class EnergyService {
     }
 
     // 👤 Energy today for a specific user (FIXED → Integer)
+    @Cacheable(cacheNames = CacheConfig.USER_ENERGY, key = "'user:' + @energyCacheKeys.user(#userId)")
     public double getTodayEnergyForUser(Integer userId) {
-        LocalDateTime start = LocalDate.now().atStartOfDay();
+        return getEnergyForUserSince(userId, LocalDate.now().atStartOfDay());
+    }
+
+    // 👤 Energy of a user's devices from the given time until now
+    public double getEnergyForUserSince(Integer userId, LocalDateTime start) {
         LocalDateTime end = LocalDateTime.now();
 
+        OptionalDouble hot = energyHotStore.sumForUser(userId, start, end);
+        if (hot.isPresent()) {
+            return hot.getAsDouble() + energyMeteringService.getUnsettledEnergyForUser(userId);
+        }
+
         Double total = energyUsageRepository.getTotalEnergyForUserBetween(userId, start, end);
-        return total != null ? total : 0.0;
+        return (total != null ? total : 0.0)
+                + energyMeteringService.getPendingEnergyForUser(userId);
     }
 
     // 💰 Convert energy → cost
@@ -66,9 +105,12 @@ public class EnergyService {
     }
 
     // 👑 Admin — total energy used by a user (all time) (FIXED → Integer)
+    // Read from monthly rollups: raw readings are only kept for the retention window
     public double getTotalEnergyForUser(Integer userId) {
-        Double total = energyUsageRepository.getTotalEnergyByUserId(userId);
-        return total != null ? total : 0.0;
+        Double total = rollupRepository.sumAllEnergy(
+                EnergyRollup.SCOPE_USER, userId.longValue(), EnergyRollup.MONTH);
+        return (total != null ? total : 0.0)
+                + energyMeteringService.getPendingEnergyForUser(userId);
     }
 
     // 🎯 Usage level
@@ -0,0 +1,121 @@
+package com.role.implementation.energytracking.service;
+
+import java.util.Arrays;
+
+/**
+ * Per-device and per-user energy totals for one time window.
+ *
+ * Built by EnergySnapshotService from one grouped query. Totals are kept in
+ * primitive open-addressing maps (long key → double), so a fleet-wide
+ * snapshot costs two arrays per map instead of one boxed entry per device.
+ * Ids without a row read as 0.0.
+ */
+public final class EnergySnapshot {
+
+    private final LongDoubleMap deviceEnergy = new LongDoubleMap();
+    private final LongDoubleMap userEnergy = new LongDoubleMap();
+    private double totalEnergy;
+
+    EnergySnapshot() {
+    }
+
+    // ===== Lookups =====
+
+    public double getDeviceEnergy(long deviceId) {
+        return deviceEnergy.get(deviceId);
+    }
+
+    public double getUserEnergy(int userId) {
+        return userEnergy.get(userId);
+    }
+
+    // Sum of all device totals in the window
+    public double getTotalEnergy() {
+        return totalEnergy;
+    }
+
+    // ===== Building (EnergySnapshotService only) =====
+
+    void addDeviceEnergy(long deviceId, double energy) {
+        deviceEnergy.add(deviceId, energy);
+        totalEnergy += energy;
+    }
+
+    void addUserEnergy(int userId, double energy) {
+        userEnergy.add(userId, energy);
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    /**
+     * Minimal long → double hash map with linear probing.
+     * Not thread-safe; a snapshot is only written while it is being built.
+     */
+    private static final class LongDoubleMap {
+
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private double[] values = new double[INITIAL_CAPACITY];
+        private int size;
+
+        private LongDoubleMap() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private double get(long key) {
+            int mask = keys.length - 1;
+            for (int i = index(key, mask); keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return 0.0;
+        }
+
+        private void add(long key, double delta) {
+            int mask = keys.length - 1;
+            int i = index(key, mask);
+            while (keys[i] != EMPTY) {
+                if (keys[i] == key) {
+                    values[i] += delta;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+
+            keys[i] = key;
+            values[i] = delta;
+
+            // Keep the load factor under 0.5
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            double[] oldValues = values;
+
+            keys = new long[oldKeys.length * 2];
+            values = new double[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    add(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int index(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.role.implementation.energytracking.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import com.role.implementation.cache.CacheConfig;
+import com.role.implementation.energytracking.model.EnergyRollup;
+import com.role.implementation.energytracking.repository.EnergyUsageRepository;
+
+/**
+ * Bulk energy totals for admin pages.
+ *
+ * One grouped rollup query returns the total of every device and every user
+ * for a window, instead of one query per device or user. Energy not yet
+ * written to the database is added from the meter in memory.
+ */
+@Service
+public class EnergySnapshotService {
+
+    private final EnergyUsageRepository energyUsageRepository;
+    private final EnergyMeteringService energyMeteringService;
+
+    public EnergySnapshotService(EnergyUsageRepository energyUsageRepository,
+                                 EnergyMeteringService energyMeteringService) {
+        this.energyUsageRepository = energyUsageRepository;
+        this.energyMeteringService = energyMeteringService;
+    }
+
+    // =========================================================
+    // 📸 SNAPSHOTS
+    // =========================================================
+
+    /**
+     * Device and user totals for today, including pending energy.
+     */
+    @Cacheable(cacheNames = CacheConfig.ENERGY_SNAPSHOTS, key = "#root.methodName + ':' + @energyCacheKeys.system()")
+    public EnergySnapshot getTodaySnapshot() {
+        LocalDate today = LocalDate.now();
+        return getSnapshot(today, today.plusDays(1));
+    }
+
+    /**
+     * Device and user totals for the days in [from, to).
+     * Pending energy is included when the window contains today.
+     */
+    public EnergySnapshot getSnapshot(LocalDate from, LocalDate to) {
+
+        EnergySnapshot snapshot = new EnergySnapshot();
+
+        energyUsageRepository.forEachScopeTotal(EnergyRollup.DAY,
+                from.atStartOfDay(), to.atStartOfDay(),
+                (scope, scopeId, energy) -> add(snapshot, scope, scopeId, energy));
+
+        LocalDate today = LocalDate.now();
+        if (!from.isAfter(today) && to.isAfter(today)) {
+            addPending(snapshot);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * All-time user totals (from monthly rollups), including pending energy.
+     * Device totals are not filled in.
+     */
+    @Cacheable(cacheNames = CacheConfig.ENERGY_SNAPSHOTS, key = "#root.methodName + ':' + @energyCacheKeys.system()")
+    public EnergySnapshot getAllTimeUserSnapshot() {
+
+        EnergySnapshot snapshot = new EnergySnapshot();
+
+        energyUsageRepository.forEachScopeTotal(EnergyRollup.MONTH,
+                LocalDateTime.of(1970, 1, 1, 0, 0), LocalDate.now().plusMonths(1).atStartOfDay(),
+                (scope, scopeId, energy) -> add(snapshot, scope, scopeId, energy));
+
+        energyMeteringService.forEachPending((deviceId, userId, energy) ->
+                snapshot.addUserEnergy(userId, energy));
+
+        return snapshot;
+    }
+
+    // =========================================================
+    // INTERNAL HELPERS
+    // =========================================================
+
+    private void add(EnergySnapshot snapshot, String scope, long scopeId, double energy) {
+        if (EnergyRollup.SCOPE_DEVICE.equals(scope)) {
+            snapshot.addDeviceEnergy(scopeId, energy);
+        } else {
+            snapshot.addUserEnergy((int) scopeId, energy);
+        }
+    }
+
+    private void addPending(EnergySnapshot snapshot) {
+        energyMeteringService.forEachPending((deviceId, userId, energy) -> {
+            snapshot.addDeviceEnergy(deviceId, energy);
+            snapshot.addUserEnergy(userId, energy);
+        });
+    }
+}
@@ -1,57 +1,65 @@
 package com.role.implementation.energytracking.service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.OptionalDouble;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import com.role.implementation.devicemanagement.model.Device;
-import com.role.implementation.devicemanagement.repository.DeviceRepository;
-import com.role.implementation.energytracking.model.EnergyUsage;
+import com.role.implementation.cache.EnergyCacheKeys;
 import com.role.implementation.energytracking.repository.EnergyUsageRepository;
 
 @Service
 public class EnergyTrackingService {
 
     @Autowired
-    private DeviceRepository deviceRepository;
+    private EnergyUsageRepository energyUsageRepository;
 
     @Autowired
-    private EnergyUsageRepository energyUsageRepository;
+    private EnergyAccumulator energyAccumulator;
+
+    @Autowired
+    private EnergyMeteringService energyMeteringService;
+
+    @Autowired
+    private EnergyHotStore energyHotStore;
+
+    @Autowired
+    private EnergyCacheKeys energyCacheKeys;
 
     // =========================================================
-    // ⏱ ENERGY TRACKING — EXISTING LOGIC (UNCHANGED)
+    // ⏱ ENERGY TRACKING — WINDOW CLOSE
     // =========================================================
 
+    /**
+     * Energy is metered from device state transitions, so this tick no longer
+     * scans the device table. It only closes finished accumulator windows:
+     * open ON intervals are settled up to the window end, then flushed.
+     */
     @Scheduled(fixedRate = 60000) // every 1 minute
     public void calculateEnergyUsage() {
 
-        List<Device> devices = deviceRepository.findAll();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowEnd = energyAccumulator.getCurrentWindowEnd();
 
-        for (Device device : devices) {
-
-            // 🛑 Skip invalid or deleted devices
-            if (device == null || device.getId() == null) {
-                continue;
-            }
-
-            // ✅ Track only ON devices
-            if (device.isStatus()) {
-
-                // ⚡ Energy (kWh) = Power (W) / 1000 × Time (hours)
-                double powerInKW = device.getPowerRating() / 1000.0;
-                double energyUsed = powerInKW * (1.0 / 60.0); // 1 minute
-
-                EnergyUsage usage = new EnergyUsage();
-                usage.setDevice(device);
-                usage.setEnergyConsumed(energyUsed);
-                usage.setTimestamp(LocalDateTime.now());
+        // 💾 Catch up window by window if ticks were delayed
+        LocalDateTime settledUntil = null;
+        while (!now.isBefore(windowEnd)) {
+            energyMeteringService.settleOpenIntervals(windowEnd);
+            energyAccumulator.closeCurrentWindow();
+            settledUntil = windowEnd;
+            windowEnd = energyAccumulator.getCurrentWindowEnd();
+        }
 
-                energyUsageRepository.save(usage);
-            }
+        // ⏪ Everything up to the last closed window is written
+        if (settledUntil != null) {
+            energyMeteringService.recordHeartbeat(settledUntil);
         }
+
+        // 🔑 New tick → every cached energy read model is recomputed on next use
+        energyCacheKeys.nextTick();
     }
 
     // =========================================================
@@ -64,8 +72,16 @@ public class EnergyTrackingService {
      */
     public double getTodayEnergyForDevice(Long deviceId) {
 
+        LocalDateTime start = LocalDate.now().atStartOfDay();
+
+        OptionalDouble hot = energyHotStore.sumForDevice(deviceId, start, LocalDateTime.now());
+        if (hot.isPresent()) {
+            return hot.getAsDouble() + energyMeteringService.getUnsettledEnergyForDevice(deviceId);
+        }
+
         return energyUsageRepository
-                .findTodayEnergyByDeviceId(deviceId)
-                .orElse(0.0);
+                .findEnergyByDeviceIdSince(deviceId, start)
+                .orElse(0.0)
+                + energyMeteringService.getPendingEnergyForDevice(deviceId);
     }
 }
@@ -0,0 +1,63 @@
+package com.role.implementation.energytracking.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Running instantaneous load (kW) of every household.
+ *
+ * Fed by the energy meter on every ON/OFF change, like the hot store, so a
+ * household's current load is an O(1) lookup and never needs a device scan.
+ * Each ON device's kW is remembered, so turning it off subtracts exactly
+ * what was added even if its rating was edited meanwhile.
+ */
+@Component
+public class HouseholdLoadTracker {
+
+    // 🔌 ON devices: device id → { user id, kW }
+    private final Map<Long, DeviceLoad> onDevices = new ConcurrentHashMap<>();
+
+    // 🏠 user id → total kW of their ON devices
+    private final Map<Integer, Double> householdLoads = new ConcurrentHashMap<>();
+
+    // =========================================================
+    // ➕ FEED (ENERGY METER ONLY)
+    // =========================================================
+
+    void deviceOn(long deviceId, int userId, double powerRating) {
+        DeviceLoad load = new DeviceLoad(userId, powerRating / 1000.0);
+        if (onDevices.putIfAbsent(deviceId, load) == null) {
+            householdLoads.merge(userId, load.kw(), Double::sum);
+        }
+    }
+
+    void deviceOff(long deviceId) {
+        DeviceLoad load = onDevices.remove(deviceId);
+        if (load != null) {
+            // Drop the entry once the household has nothing left ON
+            householdLoads.computeIfPresent(load.userId(), (id, total) -> {
+                double remaining = total - load.kw();
+                return remaining > 1e-9 ? remaining : null;
+            });
+        }
+    }
+
+    // =========================================================
+    // 📊 LOOKUPS
+    // =========================================================
+
+    public double getLoadKw(int userId) {
+        return householdLoads.getOrDefault(userId, 0.0);
+    }
+
+    // Visits only households that have something ON
+    public void forEachLoadedHousehold(IntConsumer visitor) {
+        householdLoads.keySet().forEach(visitor::accept);
+    }
+
+    private record DeviceLoad(int userId, double kw) {
+    }
+}
@@ -14,14 +14,20 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.role.implementation.DTO.UserRegisteredDTO;
+import com.role.implementation.cache.EnergyCacheKeys;
 import com.role.implementation.model.Role;
 import com.role.implementation.model.User;
 import com.role.implementation.repository.RoleRepository;
 import com.role.implementation.repository.UserRepository;
 import com.role.implementation.devicemanagement.model.Device;
 import com.role.implementation.devicemanagement.repository.DeviceRepository;
+import com.role.implementation.devicemanagement.repository.SceneRepository;
+import com.role.implementation.devicemanagement.service.DeviceRegistry;
+import com.role.implementation.energytracking.repository.EnergyRollupWriter;
 import com.role.implementation.energytracking.repository.EnergyUsageRepository;
 import com.role.implementation.automation.repository.DeviceScheduleRepository;
+import com.role.implementation.energytracking.service.ClosedPeriodEnergyCache;
+import com.role.implementation.energytracking.service.EnergyMeteringService;
 
 @Service
 public class DefaultUserServiceImpl implements DefaultUserService {
@@ -42,6 +48,24 @@ public class DefaultUserServiceImpl implements DefaultUserService {
     @Autowired
     private DeviceScheduleRepository scheduleRepo;
 
+    @Autowired
+    private SceneRepository sceneRepo;
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private EnergyMeteringService energyMeteringService;
+
+    @Autowired
+    private EnergyRollupWriter energyRollupWriter;
+
+    @Autowired
+    private EnergyCacheKeys energyCacheKeys;
+
+    @Autowired
+    private ClosedPeriodEnergyCache closedPeriodCache;
+
     private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     // =====================================================
@@ -106,14 +130,24 @@ public class DefaultUserServiceImpl implements DefaultUserService {
             // 2️⃣ Delete automation schedules
             scheduleRepo.deleteByDevice(device);
 
-            // 3️⃣ Delete energy usage history
+            // 3️⃣ Delete energy usage history (including unflushed energy)
+            energyMeteringService.discardDevice(device.getId());
+            energyRollupWriter.removeDevice(device.getId(), userId);
             energyUsageRepo.deleteByDevice(device);
+            closedPeriodCache.evictDevice(device.getId(), userId);
         }
 
-        // 4️⃣ Delete devices
+        // 📦 Remaining user-level energy rollups
+        energyRollupWriter.removeUser(userId);
+
+        // 4️⃣ Delete scenes and devices
+        sceneRepo.deleteByUser(user);
         deviceRepo.deleteByUser(user);
+        deviceRegistry.removeUser(userId);
 
         // 5️⃣ Finally delete user
         userRepo.delete(user);
+        closedPeriodCache.evictUser(userId);
+        energyCacheKeys.userChanged(userId);
     }
 }
@@ -0,0 +1,89 @@
+package com.role.implementation.adminpolicy.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.role.implementation.adminpolicy.model.EnergyPolicy;
+
+class PolicyWindowIndexTest {
+
+    private static final CompiledPolicy NIGHT = policy(1, "22:00", "06:00", 5.0);
+    private static final CompiledPolicy OFFICE = policy(2, "09:00", "17:00", 8.0);
+
+    @Test
+    void wrappedWindowIsActiveOnBothSidesOfMidnight() {
+
+        PolicyWindowIndex index = PolicyWindowIndex.build(List.of(NIGHT));
+
+        assertEquals(List.of(NIGHT), index.activeAt(LocalTime.of(23, 59)));
+        assertEquals(List.of(NIGHT), index.activeAt(LocalTime.of(0, 1)));
+        assertEquals(List.of(NIGHT), index.activeAt(LocalTime.MIDNIGHT));
+        assertEquals(List.of(), index.activeAt(LocalTime.of(12, 0)));
+    }
+
+    @Test
+    void windowEndIsInclusiveToTheNanosecond() {
+
+        PolicyWindowIndex index = PolicyWindowIndex.build(List.of(OFFICE));
+
+        assertEquals(List.of(), index.activeAt(LocalTime.of(8, 59, 59, 999_999_999)));
+        assertEquals(List.of(OFFICE), index.activeAt(LocalTime.of(9, 0)));
+        assertEquals(List.of(OFFICE), index.activeAt(LocalTime.of(17, 0)));
+        assertEquals(List.of(), index.activeAt(LocalTime.of(17, 0, 0, 1)));
+    }
+
+    @Test
+    void overlappingWindowsKeepTheGivenOrder() {
+
+        CompiledPolicy evening = policy(3, "16:00", "23:00", 3.0);
+        PolicyWindowIndex index = PolicyWindowIndex.build(List.of(evening, OFFICE, NIGHT));
+
+        assertEquals(List.of(evening, OFFICE), index.activeAt(LocalTime.of(16, 30)));
+        assertEquals(List.of(evening, NIGHT), index.activeAt(LocalTime.of(22, 30)));
+        assertEquals(List.of(NIGHT), index.activeAt(LocalTime.of(23, 30)));
+    }
+
+    @Test
+    void nextChangeIsTheNextWindowBoundary() {
+
+        PolicyWindowIndex index = PolicyWindowIndex.build(List.of(NIGHT));
+
+        assertEquals(Duration.ofHours(1).toNanos(), index.nanosUntilNextChange(LocalTime.of(21, 0)));
+
+        // Midnight is not a change: the wrapped window stays active until just after 06:00
+        assertEquals(Duration.ofHours(7).toNanos() + 1, index.nanosUntilNextChange(LocalTime.of(23, 0)));
+        assertEquals(Duration.ofHours(5).toNanos() + 1, index.nanosUntilNextChange(LocalTime.of(1, 0)));
+    }
+
+    @Test
+    void nextChangeWrapsToTomorrowsFirstWindow() {
+
+        PolicyWindowIndex index = PolicyWindowIndex.build(List.of(OFFICE));
+
+        assertEquals(Duration.ofHours(12).toNanos(), index.nanosUntilNextChange(LocalTime.of(21, 0)));
+    }
+
+    @Test
+    void noChangeWithoutPoliciesOrWithAllDayOnes() {
+
+        assertEquals(-1, PolicyWindowIndex.build(List.of()).nanosUntilNextChange(LocalTime.NOON));
+
+        CompiledPolicy allDay = new CompiledPolicy(4, "all-day", LocalTime.MIDNIGHT, LocalTime.MAX,
+                1.0, EnergyPolicy.SCOPE_ALL_USERS, false);
+        PolicyWindowIndex index = PolicyWindowIndex.build(List.of(allDay));
+
+        assertEquals(-1, index.nanosUntilNextChange(LocalTime.NOON));
+        assertTrue(index.activeAt(LocalTime.MAX).contains(allDay));
+    }
+
+    private static CompiledPolicy policy(long id, String start, String end, double threshold) {
+        return new CompiledPolicy(id, "policy-" + id, LocalTime.parse(start), LocalTime.parse(end),
+                threshold, EnergyPolicy.SCOPE_ALL_USERS, false);
+    }
+}
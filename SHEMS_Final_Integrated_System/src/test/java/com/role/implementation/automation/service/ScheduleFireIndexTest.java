@@ -0,0 +1,125 @@
+package com.role.implementation.automation.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.role.implementation.automation.service.ScheduleFireIndex.DueAction;
+
+class ScheduleFireIndexTest {
+
+    // A Monday
+    private static final Instant DAY_0 = Instant.parse("2025-01-06T00:00:00Z");
+
+    private final ScheduleFireIndex index = new ScheduleFireIndex(ZoneOffset.UTC);
+
+    @Test
+    void pollsDueActionsInTimeOrder() {
+
+        index.put(schedule(1, "08:00", "18:00"), DAY_0);
+        index.put(schedule(2, "07:00", "20:00"), DAY_0);
+
+        assertEquals(at(0, "07:00"), index.nextFireAt());
+
+        List<DueAction> due = index.pollDue(at(0, "08:30"));
+
+        assertEquals(2, due.size());
+        assertAction(due.get(0), 2, true, at(0, "07:00"));
+        assertAction(due.get(1), 1, true, at(0, "08:00"));
+        assertEquals(at(0, "18:00"), index.nextFireAt());
+    }
+
+    @Test
+    void removedSchedulesAreSkippedAtTheHead() {
+
+        index.put(schedule(1, "06:00", "18:00"), DAY_0);
+        index.put(schedule(2, "07:00", "20:00"), DAY_0);
+        index.remove(1);
+
+        assertEquals(1, index.size());
+        assertEquals(at(0, "07:00"), index.nextFireAt());
+
+        List<DueAction> due = index.pollDue(at(0, "19:00"));
+
+        assertEquals(1, due.size());
+        assertAction(due.get(0), 2, true, at(0, "07:00"));
+        assertEquals(at(0, "20:00"), index.nextFireAt());
+    }
+
+    @Test
+    void replacedScheduleFiresOnlyItsNewEvents() {
+
+        index.put(schedule(1, "08:00", "18:00"), DAY_0);
+        index.put(schedule(1, "09:00", "17:00"), DAY_0);
+
+        List<DueAction> due = index.pollDue(at(0, "17:30"));
+
+        assertEquals(2, due.size());
+        assertAction(due.get(0), 1, true, at(0, "09:00"));
+        assertAction(due.get(1), 1, false, at(0, "17:00"));
+    }
+
+    @Test
+    void missedActionsFireOnceAfterALongPause() {
+
+        index.put(schedule(1, "08:00", "18:00"), DAY_0);
+
+        List<DueAction> due = index.pollDue(at(3, "12:00"));
+
+        assertEquals(2, due.size());
+        assertAction(due.get(0), 1, true, at(0, "08:00"));
+        assertAction(due.get(1), 1, false, at(0, "18:00"));
+
+        // Next occurrences are after the poll, not after the missed ones
+        assertEquals(at(3, "18:00"), index.nextFireAt());
+        assertEquals(1, index.pollDue(at(3, "18:00")).size());
+        assertEquals(at(4, "08:00"), index.nextFireAt());
+    }
+
+    @Test
+    void frequentReplacementsLeaveOneLiveEventPerAction() {
+
+        for (int i = 0; i < 200; i++) {
+            index.put(schedule(1, "08:00", "18:00"), DAY_0);
+        }
+
+        assertEquals(1, index.size());
+
+        List<DueAction> due = index.pollDue(at(0, "23:00"));
+        assertEquals(2, due.size());
+        assertTrue(due.get(0).on());
+    }
+
+    @Test
+    void emptyIndexHasNothingDue() {
+
+        index.put(schedule(1, "08:00", "18:00"), DAY_0);
+        index.clear();
+
+        assertNull(index.nextFireAt());
+        assertTrue(index.pollDue(at(1, "00:00")).isEmpty());
+    }
+
+    private static CompiledSchedule schedule(long id, String on, String off) {
+        ScheduleRecurrence recurrence = ScheduleRecurrence.compile(LocalTime.parse(on), LocalTime.parse(off),
+                null, null, null, null, null, null);
+        return new CompiledSchedule(id, 100 + id, recurrence, 4);
+    }
+
+    private static Instant at(int day, String time) {
+        return DAY_0.plusSeconds(day * 86_400L + LocalTime.parse(time).toSecondOfDay());
+    }
+
+    private static void assertAction(DueAction action, long scheduleId, boolean on, Instant at) {
+        assertEquals(scheduleId, action.schedule().id());
+        assertEquals(on, action.on());
+        assertEquals(at, action.at());
+    }
+}
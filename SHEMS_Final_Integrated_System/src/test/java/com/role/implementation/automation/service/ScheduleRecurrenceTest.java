@@ -0,0 +1,175 @@
+package com.role.implementation.automation.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+class ScheduleRecurrenceTest {
+
+    private static final ZoneId UTC = ZoneOffset.UTC;
+
+    private static final LocalTime EIGHT = LocalTime.of(8, 0);
+    private static final LocalTime SIX_PM = LocalTime.of(18, 0);
+
+    // =========================================================
+    // 📅 DAY RULES
+    // =========================================================
+
+    @Test
+    void weekdayMaskFollowsTheCalendar() {
+
+        ScheduleRecurrence weekdays = daily("MON,WED", null, null, null);
+
+        assertTrue(weekdays.occursOn(LocalDate.of(2025, 1, 6).toEpochDay()));    // Monday
+        assertFalse(weekdays.occursOn(LocalDate.of(2025, 1, 7).toEpochDay()));   // Tuesday
+        assertTrue(weekdays.occursOn(LocalDate.of(2025, 1, 8).toEpochDay()));    // Wednesday
+        assertFalse(weekdays.occursOn(LocalDate.of(2025, 1, 12).toEpochDay()));  // Sunday
+
+        // Days before the epoch: 1969-12-31 was a Wednesday
+        assertTrue(weekdays.occursOn(LocalDate.of(1969, 12, 31).toEpochDay()));
+        assertFalse(weekdays.occursOn(LocalDate.of(1969, 12, 30).toEpochDay()));
+    }
+
+    @Test
+    void nextSkipsDaysOutsideTheMask() {
+
+        ScheduleRecurrence weekdays = daily("mon, Wednesday", null, null, null);
+
+        assertEquals(at("2025-01-08T08:00"), weekdays.next(true, at("2025-01-06T09:00"), UTC));
+        assertEquals(at("2025-01-06T18:00"), weekdays.next(false, at("2025-01-06T09:00"), UTC));
+    }
+
+    @Test
+    void excludedDatesAreSkipped() {
+
+        ScheduleRecurrence recurrence = daily(null, null, null, "2025-01-08, 2025-01-07");
+
+        assertFalse(recurrence.occursOn(LocalDate.of(2025, 1, 7).toEpochDay()));
+        assertEquals(at("2025-01-09T08:00"), recurrence.next(true, at("2025-01-06T08:00"), UTC));
+    }
+
+    @Test
+    void dateRangeBoundsTheOccurrences() {
+
+        ScheduleRecurrence recurrence = daily(null, LocalDate.of(2025, 1, 10), LocalDate.of(2025, 1, 11), null);
+
+        assertEquals(at("2025-01-10T08:00"), recurrence.next(true, at("2025-01-06T00:00"), UTC));
+        assertEquals(at("2025-01-11T08:00"), recurrence.next(true, at("2025-01-10T08:00"), UTC));
+        assertNull(recurrence.next(true, at("2025-01-11T08:00"), UTC));
+    }
+
+    // =========================================================
+    // ⏪ LOOK-BACK (RECONCILIATION)
+    // =========================================================
+
+    @Test
+    void lastFindsTheLatestActionsOfAMultiDayOutage() {
+
+        ScheduleRecurrence recurrence = daily(null, null, null, null);
+        Instant since = at("2025-01-06T00:00");
+        Instant now = at("2025-01-09T12:00");
+
+        assertEquals(at("2025-01-09T08:00"), recurrence.last(true, since, now, UTC));
+        assertEquals(at("2025-01-08T18:00"), recurrence.last(false, since, now, UTC));
+    }
+
+    @Test
+    void lastRespectsExclusionsAndTheStartOfTheRange() {
+
+        ScheduleRecurrence recurrence = daily(null, null, null, "2025-01-09");
+        Instant now = at("2025-01-09T12:00");
+
+        assertEquals(at("2025-01-08T08:00"), recurrence.last(true, at("2025-01-06T00:00"), now, UTC));
+
+        // Only actions strictly after the start of the outage count
+        assertNull(recurrence.last(true, at("2025-01-08T08:00"), now, UTC));
+        assertNull(recurrence.last(true, at("2025-01-06T09:00"), at("2025-01-06T17:00"), UTC));
+    }
+
+    @Test
+    void lastLooksBackFarEnoughForSparseCronRules() {
+
+        // First of the month at 06:00: found by the 31-day look-back span
+        ScheduleRecurrence monthly = ScheduleRecurrence.compile(null, SIX_PM, null, null, null, null,
+                "0 0 6 1 * *", null);
+
+        assertEquals(at("2025-01-01T06:00"),
+                monthly.last(true, at("2024-11-15T00:00"), at("2025-01-20T12:00"), UTC));
+        assertNull(monthly.last(true, at("2025-01-02T00:00"), at("2025-01-20T12:00"), UTC));
+    }
+
+    @Test
+    void cronRulesHonourTheDayRules() {
+
+        ScheduleRecurrence recurrence = ScheduleRecurrence.compile(null, null, "SAT,SUN", null, null,
+                null, "0 30 7 * * *", null);
+
+        assertEquals(at("2025-01-11T07:30"), recurrence.next(true, at("2025-01-06T00:00"), UTC));
+        assertNull(recurrence.next(false, at("2025-01-06T00:00"), UTC));
+    }
+
+    // =========================================================
+    // 🔁 PRECOMPUTED OCCURRENCES
+    // =========================================================
+
+    @Test
+    void compiledScheduleRefillsItsBufferAcrossDays() {
+
+        CompiledSchedule schedule = new CompiledSchedule(1, 10, daily(null, null, null, null), 2);
+
+        Instant at = at("2025-01-06T00:00");
+        for (int day = 6; day <= 10; day++) {
+            at = schedule.nextFire(true, at, UTC);
+            assertEquals(at("2025-01-%02dT08:00".formatted(day)), at);
+        }
+
+        // An earlier query is answered from the buffer, never before the buffer head
+        assertEquals(at("2025-01-11T08:00"), schedule.nextFire(true, at("2025-01-10T08:00"), UTC));
+    }
+
+    @Test
+    void compiledScheduleFinishesWithItsDateRange() {
+
+        CompiledSchedule schedule = new CompiledSchedule(1, 10,
+                daily(null, LocalDate.of(2025, 1, 6), LocalDate.of(2025, 1, 8), null), 2);
+
+        assertEquals(at("2025-01-08T08:00"), schedule.nextFire(true, at("2025-01-07T08:00"), UTC));
+        assertNull(schedule.nextFire(true, at("2025-01-08T08:00"), UTC));
+    }
+
+    // =========================================================
+    // ⚠️ INVALID RULES
+    // =========================================================
+
+    @Test
+    void invalidRulesAreRejected() {
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ScheduleRecurrence.compile(null, null, null, null, null, null, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> daily(null, LocalDate.of(2025, 1, 8), LocalDate.of(2025, 1, 6), null));
+        assertThrows(IllegalArgumentException.class, () -> daily("MON,XYZ", null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> daily(null, null, null, "08/01/2025"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ScheduleRecurrence.compile(null, null, null, null, null, null, "not a cron", null));
+    }
+
+    private static ScheduleRecurrence daily(String days, LocalDate start, LocalDate end, String excluded) {
+        return ScheduleRecurrence.compile(EIGHT, SIX_PM, days, start, end, excluded, null, null);
+    }
+
+    private static Instant at(String dateTime) {
+        return LocalDateTime.parse(dateTime).toInstant(ZoneOffset.UTC);
+    }
+}
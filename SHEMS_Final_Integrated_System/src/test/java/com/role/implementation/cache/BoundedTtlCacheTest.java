@@ -0,0 +1,97 @@
+package com.role.implementation.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+class BoundedTtlCacheTest {
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedOverTheLimit() {
+
+        BoundedTtlCache cache = new BoundedTtlCache("test", 2, 60);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        // Reading "a" makes "b" the least recently used
+        assertEquals(1, cache.get("a").get());
+        cache.put("c", 3);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a").get());
+        assertEquals(3, cache.get("c").get());
+    }
+
+    @Test
+    void replacingAnEntryDoesNotEvict() {
+
+        BoundedTtlCache cache = new BoundedTtlCache("test", 2, 60);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("a", 10);
+
+        assertEquals(2, cache.size());
+        assertEquals(0, cache.getEvictions());
+        assertEquals(10, cache.get("a").get());
+    }
+
+    @Test
+    void expiredEntriesAreDroppedWhenRead() throws InterruptedException {
+
+        BoundedTtlCache cache = new BoundedTtlCache("test", 10, 1);
+        cache.put("a", 1);
+
+        assertEquals(1, cache.get("a").get());
+
+        Thread.sleep(1_100);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void hitsAndMissesAreCounted() {
+
+        BoundedTtlCache cache = new BoundedTtlCache("test", 10, 60);
+        cache.put("a", 1);
+        cache.put("none", null);
+
+        cache.get("a");
+        cache.get("a");
+        cache.get("missing");
+
+        // A cached null is a hit, wrapped like any other value
+        Cache.ValueWrapper none = cache.get("none");
+        assertNotNull(none);
+        assertNull(none.get());
+
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void valueLoaderRunsOnlyOnAMiss() {
+
+        BoundedTtlCache cache = new BoundedTtlCache("test", 10, 60);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v", cache.get("k", () -> { loads.incrementAndGet(); return "v"; }));
+        assertEquals("v", cache.get("k", () -> { loads.incrementAndGet(); return "other"; }));
+        assertEquals(1, loads.get());
+
+        assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get("failing", () -> { throw new IllegalStateException("down"); }));
+        assertNull(cache.get("failing"));
+    }
+}
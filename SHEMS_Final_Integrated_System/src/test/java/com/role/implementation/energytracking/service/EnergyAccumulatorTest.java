@@ -0,0 +1,167 @@
+package com.role.implementation.energytracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.role.implementation.energytracking.model.EnergyReading;
+import com.role.implementation.energytracking.repository.EnergyUsageBatchWriter;
+
+class EnergyAccumulatorTest {
+
+    // Collects the readings instead of writing them
+    private final List<EnergyReading> written = Collections.synchronizedList(new ArrayList<>());
+
+    private final EnergyUsageBatchWriter batchWriter = new EnergyUsageBatchWriter(null, null, null, 1000) {
+        @Override
+        public int writeAll(List<EnergyReading> readings) {
+            written.addAll(readings);
+            return readings.size();
+        }
+    };
+
+    @Test
+    void flushDeviceWritesItsEnergyOnceStampedWithTheWindowStart() {
+
+        EnergyAccumulator accumulator = new EnergyAccumulator(batchWriter, 15);
+        accumulator.add(1, 7, 0.25);
+        accumulator.add(1, 7, 0.5);
+        accumulator.add(2, 7, 1.0);
+
+        accumulator.flushDevice(1);
+        accumulator.flushDevice(1);
+
+        assertEquals(1, written.size());
+        EnergyReading reading = written.get(0);
+        assertEquals(1, reading.getDeviceId());
+        assertEquals(7, reading.getUserId());
+        assertEquals(0.75, reading.getEnergyConsumed());
+        assertEquals(accumulator.getCurrentWindowStart(), reading.getTimestamp());
+
+        assertEquals(0.0, accumulator.getPendingEnergyForDevice(1));
+        assertEquals(1.0, accumulator.getPendingEnergyForDevice(2));
+    }
+
+    @Test
+    void pendingEnergyIsTrackedPerUser() {
+
+        EnergyAccumulator accumulator = new EnergyAccumulator(batchWriter, 15);
+        accumulator.add(1, 7, 1.0);
+        accumulator.add(2, 7, 2.0);
+        accumulator.add(3, 8, 4.0);
+
+        assertEquals(3.0, accumulator.getPendingEnergyForUser(7));
+        assertEquals(4.0, accumulator.getPendingEnergyForUser(8));
+        assertEquals(0.0, accumulator.getPendingEnergyForUser(9));
+        assertEquals(7.0, accumulator.getPendingEnergyTotal());
+
+        accumulator.flushDevices(List.of(1L, 3L));
+        accumulator.discardDevice(2);
+
+        assertEquals(0.0, accumulator.getPendingEnergyForUser(7));
+        assertEquals(0.0, accumulator.getPendingEnergyForUser(8));
+        assertEquals(2, written.size());
+    }
+
+    @Test
+    void lateEnergyIsStampedWithItsOwnWindow() {
+
+        EnergyAccumulator accumulator = new EnergyAccumulator(batchWriter, 15);
+        accumulator.addLate(1, 7, 0.5, LocalDateTime.of(2025, 1, 6, 10, 7, 30));
+        accumulator.addLate(2, 7, 0.5, LocalDateTime.of(2025, 1, 6, 10, 7, 30));
+        accumulator.discardDevice(2);
+
+        accumulator.flushLate();
+
+        assertEquals(1, written.size());
+        assertEquals(LocalDateTime.of(2025, 1, 6, 10, 0), written.get(0).getTimestamp());
+    }
+
+    @Test
+    void closingAWindowWritesEverythingAndMovesOn() {
+
+        EnergyAccumulator accumulator = new EnergyAccumulator(batchWriter, 15);
+        LocalDateTime start = accumulator.getCurrentWindowStart();
+        accumulator.add(1, 7, 1.0);
+        accumulator.add(2, 8, 2.0);
+
+        accumulator.closeCurrentWindow();
+
+        assertEquals(2, written.size());
+        written.forEach(reading -> assertEquals(start, reading.getTimestamp()));
+        assertEquals(start.plusMinutes(15), accumulator.getCurrentWindowStart());
+        assertEquals(0.0, accumulator.getPendingEnergyTotal());
+    }
+
+    @Test
+    void lastWindowOfTheDayEndsAtMidnight() {
+
+        // 1440 is not a multiple of 7, so the last window (from 23:55) is cut short
+        EnergyAccumulator accumulator = new EnergyAccumulator(batchWriter, 7);
+
+        LocalTime lastStart = LocalTime.of(23, 55);
+        for (int i = 0; i < 300 && !accumulator.getCurrentWindowStart().toLocalTime().equals(lastStart); i++) {
+            accumulator.closeCurrentWindow();
+        }
+
+        LocalDateTime last = accumulator.getCurrentWindowStart();
+        LocalDateTime midnight = last.toLocalDate().plusDays(1).atStartOfDay();
+        assertEquals(lastStart, last.toLocalTime());
+        assertEquals(midnight, accumulator.getCurrentWindowEnd());
+
+        accumulator.closeCurrentWindow();
+        assertEquals(midnight, accumulator.getCurrentWindowStart());
+    }
+
+    @Test
+    void energyAddedDuringFlushesIsNeverLost() throws InterruptedException {
+
+        EnergyAccumulator accumulator = new EnergyAccumulator(batchWriter, 15);
+        int threads = 4;
+        int addsPerThread = 50_000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicBoolean adding = new AtomicBoolean(true);
+
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < addsPerThread; i++) {
+                    accumulator.add(1, 7, 0.5);
+                }
+                done.countDown();
+            });
+        }
+        pool.execute(() -> {
+            while (adding.get()) {
+                accumulator.flushDevice(1);
+            }
+        });
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        adding.set(false);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        accumulator.flushAll();
+
+        double total = 0.0;
+        synchronized (written) {
+            for (EnergyReading reading : written) {
+                total += reading.getEnergyConsumed();
+            }
+        }
+        assertEquals(threads * addsPerThread * 0.5, total);
+    }
+}